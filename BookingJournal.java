@@ -0,0 +1,392 @@
+package ooad;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only binary journal of booking and payment events, shared by the ticketing systems.
+ * Fixed size records go into memory-mapped segment files. A background flusher forces the
+ * current segment every commit interval, so all appends in that window share one fsync (group commit).
+ * compact() folds closed segments into a snapshot of booked seats per showtime and deletes them.
+ *
+ * Record layout (32 bytes): type (1) | padding (3) | seat number (4) | showtime id (8) | timestamp millis (8) | amount (8)
+ */
+public class BookingJournal implements Closeable {
+
+    public enum EventType {
+        BOOK, HOLD, CONFIRM, RELEASE, PAYMENT;
+    }
+
+    static final int RECORD_SIZE = 32;
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final long SNAPSHOT_MAGIC = 0x424b4a534e415031L;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long commitIntervalNanos;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object durableMonitor = new Object();
+    // Futures from whenDurable, earliest sequence first; guarded by durableMonitor
+    private final PriorityQueue<DurableWaiter> waiters = new PriorityQueue<>();
+    private final Thread flusher;
+
+    private MappedByteBuffer segment;
+    private long segmentNumber;
+    private long writtenSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+
+    public BookingJournal(Path directory, int segmentRecords, long commitIntervalNanos) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = (long) segmentRecords * RECORD_SIZE;
+        this.commitIntervalNanos = commitIntervalNanos;
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            openSegment(segments.get(segments.size() - 1));
+            segment.position(recordCount(segment) * RECORD_SIZE);
+        }
+        this.flusher = new Thread(this::flushLoop, "booking-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // 64 MB segments, 2 ms group commit window
+    public BookingJournal(Path directory) throws IOException {
+        this(directory, 1 << 21, 2_000_000L);
+    }
+
+    /**
+     * Appends one event and returns its sequence number for this process.
+     * The record is visible to replay once awaitDurable(sequence) returns.
+     */
+    public long append(EventType type, long showTimeId, int seatNumber, double amount) {
+        appendLock.lock();
+        try {
+            if (!segment.hasRemaining()) {
+                roll();
+            }
+            int position = segment.position();
+            segment.putInt(position + 4, seatNumber);
+            segment.putLong(position + 8, showTimeId);
+            segment.putLong(position + 16, System.currentTimeMillis());
+            segment.putDouble(position + 24, amount);
+            // type last: a zero type byte marks the end of the written region
+            segment.put(position, (byte) (type.ordinal() + 1));
+            segment.position(position + RECORD_SIZE);
+            return ++writtenSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) throws InterruptedException {
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence && !closed) {
+                durableMonitor.wait();
+            }
+        }
+    }
+
+    /**
+     * Completes once awaitDurable(sequence) would return, without blocking the caller.
+     * Dependent stages run on the flusher thread, so they should be short.
+     */
+    public CompletableFuture<Void> whenDurable(long sequence) {
+        synchronized (durableMonitor) {
+            if (durableSequence < sequence && !closed) {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                waiters.add(new DurableWaiter(sequence, future));
+                return future;
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Rolls to a fresh segment, folds the snapshot and every closed segment into a new
+     * snapshot and deletes those segments. Appends only wait for the roll.
+     */
+    public void compact() throws IOException {
+        long firstLiveSegment;
+        appendLock.lock();
+        try {
+            roll();
+            firstLiveSegment = segmentNumber;
+        } finally {
+            appendLock.unlock();
+        }
+        Replay state = replay(directory, firstLiveSegment);
+        writeSnapshot(state, firstLiveSegment);
+        for (long number : listSegments(directory)) {
+            if (number < firstLiveSegment) {
+                Files.deleteIfExists(segmentPath(directory, number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+            durableSequence = writtenSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        publishDurable();
+    }
+
+    public static Replay replay(Path directory) throws IOException {
+        return replay(directory, Long.MAX_VALUE);
+    }
+
+    // Snapshot plus every segment numbered below endSegment
+    private static Replay replay(Path directory, long endSegment) throws IOException {
+        Replay replay = new Replay();
+        long firstSegment = readSnapshot(directory, replay);
+        for (long number : listSegments(directory)) {
+            if (number < firstSegment || number >= endSegment) {
+                continue;
+            }
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segmentPath(directory, number), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            int records = recordCount(buffer);
+            for (int i = 0; i < records; i++) {
+                int position = i * RECORD_SIZE;
+                replay.apply(EVENT_TYPES[buffer.get(position) - 1], buffer.getLong(position + 8), buffer.getInt(position + 4));
+            }
+        }
+        return replay;
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(commitIntervalNanos);
+            long target;
+            MappedByteBuffer dirty;
+            appendLock.lock();
+            try {
+                target = writtenSequence;
+                dirty = segment;
+            } finally {
+                appendLock.unlock();
+            }
+            if (target > durableSequence) {
+                // Older segments were forced when they were rolled
+                dirty.force();
+                durableSequence = target;
+                publishDurable();
+            }
+        }
+    }
+
+    // Wakes awaitDurable callers and completes the whenDurable futures that are now covered
+    private void publishDurable() {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+            while (!waiters.isEmpty() && (waiters.peek().sequence <= durableSequence || closed)) {
+                ready.add(waiters.poll().future);
+            }
+        }
+        for (CompletableFuture<Void> future : ready) {
+            future.complete(null);
+        }
+    }
+
+    // Caller holds appendLock
+    private void roll() throws IOException {
+        segment.force();
+        openSegment(segmentNumber + 1);
+    }
+
+    private void openSegment(long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        this.segmentNumber = number;
+    }
+
+    // Records are contiguous from the start of a segment, so binary search for the first zero type byte
+    private static int recordCount(ByteBuffer buffer) {
+        int low = 0;
+        int high = buffer.capacity() / RECORD_SIZE;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.get(mid * RECORD_SIZE) != 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Snapshot layout: magic | first live segment | showtime count, then per showtime:
+     * id | word count | booked bitmap words
+     */
+    private void writeSnapshot(Replay state, long firstLiveSegment) throws IOException {
+        Map<Long, long[]> bitmaps = new HashMap<>();
+        long size = 20;
+        for (Map.Entry<Long, BitSet> entry : state.booked.entrySet()) {
+            long[] words = entry.getValue().toLongArray();
+            bitmaps.put(entry.getKey(), words);
+            size += 12 + 8L * words.length;
+        }
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putLong(SNAPSHOT_MAGIC);
+            buffer.putLong(firstLiveSegment);
+            buffer.putInt(bitmaps.size());
+            for (Map.Entry<Long, long[]> entry : bitmaps.entrySet()) {
+                long[] words = entry.getValue();
+                buffer.putLong(entry.getKey());
+                buffer.putInt(words.length);
+                for (long word : words) {
+                    buffer.putLong(word);
+                }
+            }
+            buffer.force();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns the first segment not covered by the snapshot
+    private static long readSnapshot(Path directory, Replay replay) throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getLong() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a booking journal snapshot: " + path);
+        }
+        long firstLiveSegment = buffer.getLong();
+        int showTimes = buffer.getInt();
+        for (int i = 0; i < showTimes; i++) {
+            long showTimeId = buffer.getLong();
+            long[] words = new long[buffer.getInt()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = buffer.getLong();
+            }
+            replay.booked.put(showTimeId, BitSet.valueOf(words));
+        }
+        return firstLiveSegment;
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Booked seats per showtime id rebuilt from the journal. Holds are not restored:
+     * a checkout in flight at shutdown has to start over.
+     */
+    public static class Replay {
+        private final Map<Long, BitSet> booked = new HashMap<>();
+        private long records;
+        private long lastShowTimeId = Long.MIN_VALUE;
+        private BitSet lastBooked;
+
+        void apply(EventType type, long showTimeId, int seatNumber) {
+            records++;
+            // HOLD and RELEASE cancel out or die with the process, PAYMENT carries no seat state
+            if (type != EventType.BOOK && type != EventType.CONFIRM) {
+                return;
+            }
+            // Records for one showtime cluster together, skip the map lookup while they do
+            if (showTimeId != lastShowTimeId) {
+                lastShowTimeId = showTimeId;
+                lastBooked = booked.computeIfAbsent(showTimeId, id -> new BitSet());
+            }
+            lastBooked.set(seatNumber);
+        }
+
+        public BitSet booked(long showTimeId) {
+            BitSet seats = booked.get(showTimeId);
+            return seats == null ? new BitSet() : seats;
+        }
+
+        public boolean isBooked(long showTimeId, int seatNumber) {
+            BitSet seats = booked.get(showTimeId);
+            return seats != null && seats.get(seatNumber);
+        }
+
+        public long getRecords() {
+            return records;
+        }
+    }
+
+    static class DurableWaiter implements Comparable<DurableWaiter> {
+        final long sequence;
+        final CompletableFuture<Void> future;
+
+        DurableWaiter(long sequence, CompletableFuture<Void> future) {
+            this.sequence = sequence;
+            this.future = future;
+        }
+
+        @Override
+        public int compareTo(DurableWaiter other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package ooad;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Partitioned single-writer executor for the booking managers. Each showtime id is owned by
+ * exactly one shard, and each shard is one thread draining its own bounded MPSC mailbox, so a
+ * showtime's seat state is only ever mutated by that thread. Throughput scales with the number of shards.
+ * When a hot showtime fills its shard's mailbox, submitters wait up to maxOfferWaitNanos and are
+ * then rejected with RejectedExecutionException (backpressure).
+ */
+public class BookingShards implements Closeable {
+
+    private final Shard[] shards;
+    private final long maxOfferWaitNanos;
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean closed;
+
+    public BookingShards(int shardCount, int mailboxCapacity, long maxOfferWaitNanos) {
+        this.maxOfferWaitNanos = maxOfferWaitNanos;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(mailboxCapacity);
+            Thread thread = new Thread(shards[i], "booking-shard-" + i);
+            thread.setDaemon(true);
+            shards[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    public BookingShards() {
+        this(Runtime.getRuntime().availableProcessors(), 4096, 1_000_000L);
+    }
+
+    public <T> CompletableFuture<T> submit(long showTimeId, Supplier<T> command) {
+        Task<T> task = new Task<>(command);
+        if (closed) {
+            task.future.completeExceptionally(new RejectedExecutionException("Booking shards closed"));
+            return task.future;
+        }
+        Shard shard = shards[shardFor(showTimeId)];
+        long deadline = 0;
+        while (!shard.mailbox.offer(task)) {
+            if (deadline == 0) {
+                deadline = System.nanoTime() + maxOfferWaitNanos;
+            } else if (System.nanoTime() - deadline > 0) {
+                rejected.increment();
+                task.future.completeExceptionally(new RejectedExecutionException("Booking shard busy for showtime " + showTimeId));
+                return task.future;
+            }
+            Thread.onSpinWait();
+        }
+        shard.wake();
+        if (closed) {
+            // Raced with close(): its drain may have missed this task. Fails it unless the shard already started it
+            task.reject();
+        }
+        return task.future;
+    }
+
+    public int shardFor(long showTimeId) {
+        long h = showTimeId * 0x9E3779B97F4A7C15L;
+        return (int) ((h ^ (h >>> 32)) & 0x7fffffffL) % shards.length;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int mailboxDepth(int shard) {
+        return shards[shard].mailbox.size();
+    }
+
+    // Stops the shards; tasks still queued fail with RejectedExecutionException
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // The shard thread has exited, so this thread is now the mailbox's only consumer
+            Task<?> task;
+            while ((task = shard.mailbox.poll()) != null) {
+                task.reject();
+            }
+        }
+    }
+
+    static class Task<T> {
+        final Supplier<T> command;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        // Claimed by either run or reject, never both
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Task(Supplier<T> command) {
+            this.command = command;
+        }
+
+        // Errors are caught too: letting one escape would kill the shard and strand every task behind it
+        void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                future.complete(command.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        void reject() {
+            if (claimed.compareAndSet(false, true)) {
+                future.completeExceptionally(new RejectedExecutionException("Booking shards closed"));
+            }
+        }
+    }
+
+    static class Shard implements Runnable {
+        final MpscBoundedQueue<Task<?>> mailbox;
+        Thread thread;
+        volatile boolean parked;
+        volatile boolean running = true;
+
+        Shard(int capacity) {
+            this.mailbox = new MpscBoundedQueue<>(capacity);
+        }
+
+        void wake() {
+            if (parked) {
+                parked = false;
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Task<?> task = mailbox.poll();
+                if (task != null) {
+                    task.run();
+                    continue;
+                }
+                parked = true;
+                // Re-check after publishing parked so a concurrent offer cannot be missed
+                if (mailbox.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    /**
+     * Bounded multi-producer single-consumer ring. Producers claim a slot by CAS on the tail;
+     * per-slot sequence numbers tell the consumer when a claimed slot has been filled.
+     */
+    static class MpscBoundedQueue<E> {
+        private final int mask;
+        private final AtomicReferenceArray<E> buffer;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        MpscBoundedQueue(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            this.mask = size - 1;
+            this.buffer = new AtomicReferenceArray<>(size);
+            this.sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(E element) {
+            while (true) {
+                long position = tail.get();
+                int slot = (int) position & mask;
+                long sequence = sequences.get(slot);
+                if (sequence < position) {
+                    return false; // full
+                }
+                if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(slot, element);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+            }
+        }
+
+        // Consumer thread only
+        E poll() {
+            long position = head;
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                return null;
+            }
+            E element = buffer.get(slot);
+            buffer.lazySet(slot, null);
+            sequences.set(slot, position + mask + 1);
+            head = position + 1;
+            return element;
+        }
+
+        boolean isEmpty() {
+            return sequences.get((int) head & mask) != head + 1;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+    }
+}
@@ -3,8 +3,11 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 public  class EventManagementSystem {
     @Getter
@@ -73,15 +76,29 @@ public  class EventManagementSystem {
     }
 
      static class ShowTime {
+        private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+        final long id;
         Date date;
         Venue venue;
         Event event;
         List<Seat> availableSeats;
 
         public ShowTime(Date date, Venue venue, Event event) {
+            this(NEXT_ID.getAndIncrement(), date, venue, event);
+        }
+
+        // Use a stable id when bookings are journaled and restored across restarts
+        public ShowTime(long id, Date date, Venue venue, Event event) {
+            this.id = id;
             this.date = date;
             this.venue = venue;
             this.event = event;
+            this.availableSeats = new ArrayList<>();
+        }
+
+        public long getId() {
+            return id;
         }
 
 
@@ -142,7 +159,8 @@ public  class EventManagementSystem {
             this.bookings = new ArrayList<>();
         }
 
-        public void addBooking(Booking booking) {
+        // Bookings for different showtimes of one user complete on different shard threads
+        public synchronized void addBooking(Booking booking) {
             bookings.add(booking);
         }
     }
@@ -150,20 +168,66 @@ public  class EventManagementSystem {
     static  class BookingManager {
         public static BookingManager INSTANCE  = new BookingManager();
 
+        private volatile BookingJournal journal;
+
+        // Started on first use so the shard threads only exist once booking is used
+        private static class Shards {
+            static final BookingShards INSTANCE = new BookingShards();
+        }
+
+        // Runs on the shard that owns the showtime; every booking goes through here, so its seat list has a single writer
+        public CompletableFuture<Booking> bookTicketAsync(User user, ShowTime showTime, Integer seatNumber) {
+            return Shards.INSTANCE.submit(showTime.getId(), () -> book(user, showTime, seatNumber)).thenCompose(booking -> booking);
+        }
+
+        // Every booking and payment from here on is appended to the journal
+        public void setJournal(BookingJournal journal) {
+            this.journal = journal;
+        }
+
+        // Re-books every seat the journal recorded as booked; call before taking traffic
+        public void restore(BookingJournal.Replay replay, Collection<ShowTime> showTimes) {
+            for (ShowTime showTime : showTimes) {
+                for (Seat seat : showTime.availableSeats) {
+                    if (replay.isBooked(showTime.getId(), seat.getSeatNumber())) {
+                        seat.book();
+                    }
+                }
+            }
+        }
+
         public Booking bookTicket(User user, ShowTime showTime, Integer seatNumber) {
+            return bookTicketAsync(user, showTime, seatNumber).join();
+        }
+
+        // Shard thread only. Returned once the payment record's group commit, which also covers the booking, is on disk
+        private CompletableFuture<Booking> book(User user, ShowTime showTime, Integer seatNumber) {
             if(showTime.isSeatAvailable(seatNumber)) {
                 showTime.bookSeat(seatNumber);
+                journal(BookingJournal.EventType.BOOK, showTime, seatNumber, 0.0);
                 Booking booking = new Booking(user,showTime,seatNumber);
-                user.addBooking(booking);
                 Payment p = new Payment(booking, 15.0);
                 p.processPayment();
-                return booking;
+                long sequence = journal(BookingJournal.EventType.PAYMENT, showTime, seatNumber, p.amount);
+                return whenDurable(sequence).thenApply(durable -> {
+                    user.addBooking(booking);
+                    return booking;
+                });
             } else {
                 System.out.println("Seat not available.");
-                return new Booking(null,null,-1);
+                return CompletableFuture.completedFuture(new Booking(null,null,-1));
             }
+        }
 
+        // Returns the record's sequence, or 0 when no journal is set
+        private long journal(BookingJournal.EventType type, ShowTime showTime, int seatNumber, double amount) {
+            BookingJournal current = journal;
+            return current == null ? 0 : current.append(type, showTime.getId(), seatNumber, amount);
+        }
 
+        private CompletableFuture<Void> whenDurable(long sequence) {
+            BookingJournal current = journal;
+            return current == null || sequence == 0 ? CompletableFuture.completedFuture(null) : current.whenDurable(sequence);
         }
 
     }
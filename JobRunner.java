@@ -1,11 +1,30 @@
 package ooad;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.time.DayOfWeek;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public  class JobRunner {
     enum Priority {
@@ -35,6 +54,23 @@ public  class JobRunner {
 
     interface Schedule {
         boolean shouldRun(LocalDateTime localDateTime);
+
+        /**
+         * First time strictly after the given one at which this schedule fires, or null if it
+         * never fires again. The default steps minute by minute through shouldRun for up to a
+         * year, which only suits predicate-only schedules; built-in schedules compute it directly.
+         */
+        default LocalDateTime nextFireTime(LocalDateTime after) {
+            LocalDateTime candidate = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            LocalDateTime horizon = after.plusYears(1);
+            while (!candidate.isAfter(horizon)) {
+                if (shouldRun(candidate)) {
+                    return candidate;
+                }
+                candidate = candidate.plusMinutes(1);
+            }
+            return null;
+        }
     }
 
 
@@ -79,10 +115,19 @@ public  class JobRunner {
 
             return localDateTime.getHour() == this.hour;
         }
+
+        // Once a day, on the hour
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            LocalDateTime fire = after.toLocalDate().atTime(hour, 0);
+            return fire.isAfter(after) ? fire : fire.plusDays(1);
+        }
     }
     @Getter
     static class WeeklySchedule implements Schedule {
         List<DayOfWeek> dayOfWeeks;
+        // Bit (ordinal) per listed day, so matching is one test instead of List.contains
+        private volatile int dayMask;
 
         public WeeklySchedule() {
             this.dayOfWeeks = new ArrayList<>();
@@ -91,12 +136,28 @@ public  class JobRunner {
         @Override
         public boolean shouldRun(LocalDateTime localDateTime) {
 
-            return this.dayOfWeeks.contains(localDateTime.getDayOfWeek());
+            return (dayMask & 1 << localDateTime.getDayOfWeek().ordinal()) != 0;
+
+        }
 
+        // Midnight starting each listed day
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            if (dayMask == 0) {
+                return null;
+            }
+            LocalDateTime midnight = after.toLocalDate().plusDays(1).atStartOfDay();
+            int from = midnight.getDayOfWeek().ordinal();
+            int day = 0;
+            while ((dayMask & 1 << (from + day) % 7) == 0) {
+                day++;
+            }
+            return midnight.plusDays(day);
         }
 
         public void addDayToSchedule(DayOfWeek dayOfWeek) {
             this.dayOfWeeks.add(dayOfWeek);
+            this.dayMask |= 1 << dayOfWeek.ordinal();
         }
     }
 
@@ -110,69 +171,993 @@ public  class JobRunner {
 
         }
 
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            return after.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        }
+
 
     }
+    // Sorted by time, so lookups and range queries are O(log n); safe to edit while scheduled
     @Getter
     static class CustomSchedule implements Schedule {
-        List<LocalDateTime> localDateTimes;
+        NavigableSet<LocalDateTime> localDateTimes;
 
         public CustomSchedule() {
-            this.localDateTimes = new ArrayList<>();
+            this.localDateTimes = new ConcurrentSkipListSet<>();
         }
 
+        // True if a custom time falls in the same minute, not only on the exact nanosecond
         @Override
         public boolean shouldRun(LocalDateTime localDateTime) {
-            return localDateTimes.contains(localDateTime);
+            LocalDateTime minute = localDateTime.truncatedTo(ChronoUnit.MINUTES);
+            LocalDateTime next = localDateTimes.ceiling(minute);
+            return next != null && next.isBefore(minute.plusMinutes(1));
+        }
+
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            return localDateTimes.higher(after);
         }
+
+        // Custom times in [from, to)
+        public NavigableSet<LocalDateTime> between(LocalDateTime from, LocalDateTime to) {
+            return localDateTimes.subSet(from, true, to, false);
+        }
+
         public void addCustomSchedule(LocalDateTime customTime) {
             localDateTimes.add(customTime);
 
         }
+
+        public boolean removeCustomSchedule(LocalDateTime customTime) {
+            return localDateTimes.remove(customTime);
+        }
+    }
+
+    /**
+     * Five-field cron expression (minute hour day-of-month month day-of-week) compiled to one
+     * bitmask per field. Fields take *, numbers, ranges a-b, lists a,b and steps such as
+     * 0-30/5 or a star followed by /n; day-of-week is 0-7 with 0 and 7 both Sunday. As in
+     * cron, when both day fields are restricted a day matches if either does. Matching is a handful of bit tests with no
+     * allocation; nextFireTime skips whole months, days and hours that cannot match.
+     */
+    @Getter
+    static class CronSchedule implements Schedule {
+        // Give up looking for a next fire time after this many years (e.g. "0 0 30 2 *")
+        private static final int MAX_YEARS = 5;
+
+        String expression;
+        private final long minutes;
+        private final int hours;
+        private final long daysOfMonth;
+        private final int months;
+        // Bit per DayOfWeek.ordinal(), Monday = 0
+        private final int daysOfWeek;
+        private final boolean anyDayOfMonth;
+        private final boolean anyDayOfWeek;
+
+        public CronSchedule(String expression) {
+            String[] fields = expression.trim().split("\\s+");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Cron expression needs 5 fields: " + expression);
+            }
+            this.expression = expression;
+            this.minutes = parseField(fields[0], 0, 59);
+            this.hours = (int) parseField(fields[1], 0, 23);
+            this.daysOfMonth = parseField(fields[2], 1, 31);
+            this.months = (int) parseField(fields[3], 1, 12);
+            long cronDays = parseField(fields[4], 0, 7);
+            // cron counts from Sunday = 0 (and 7); DayOfWeek.ordinal() from Monday = 0
+            int days = 0;
+            for (int cronDay = 0; cronDay <= 7; cronDay++) {
+                if ((cronDays & 1L << cronDay) != 0) {
+                    days |= 1 << (cronDay + 6) % 7;
+                }
+            }
+            this.daysOfWeek = days;
+            this.anyDayOfMonth = fields[2].equals("*");
+            this.anyDayOfWeek = fields[4].equals("*");
+        }
+
+        static long parseField(String field, int min, int max) {
+            long mask = 0;
+            for (String part : field.split(",")) {
+                int step = 1;
+                int slash = part.indexOf('/');
+                if (slash >= 0) {
+                    step = Integer.parseInt(part.substring(slash + 1));
+                    part = part.substring(0, slash);
+                }
+                int from;
+                int to;
+                if (part.equals("*")) {
+                    from = min;
+                    to = max;
+                } else {
+                    int dash = part.indexOf('-');
+                    from = Integer.parseInt(dash >= 0 ? part.substring(0, dash) : part);
+                    to = dash >= 0 ? Integer.parseInt(part.substring(dash + 1)) : slash >= 0 ? max : from;
+                }
+                if (from < min || to > max || from > to || step < 1) {
+                    throw new IllegalArgumentException("Invalid cron field: " + field);
+                }
+                for (int value = from; value <= to; value += step) {
+                    mask |= 1L << value;
+                }
+            }
+            return mask;
+        }
+
+        @Override
+        public boolean shouldRun(LocalDateTime localDateTime) {
+            return (minutes & 1L << localDateTime.getMinute()) != 0
+                    && (hours & 1 << localDateTime.getHour()) != 0
+                    && (months & 1 << localDateTime.getMonthValue()) != 0
+                    && dayMatches(localDateTime.getDayOfMonth(), localDateTime.getDayOfWeek());
+        }
+
+        private boolean dayMatches(int dayOfMonth, DayOfWeek dayOfWeek) {
+            boolean monthDay = (daysOfMonth & 1L << dayOfMonth) != 0;
+            boolean weekDay = (daysOfWeek & 1 << dayOfWeek.ordinal()) != 0;
+            if (anyDayOfMonth || anyDayOfWeek) {
+                return monthDay && weekDay;
+            }
+            return monthDay || weekDay;
+        }
+
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            LocalDateTime time = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            LocalDateTime horizon = time.plusYears(MAX_YEARS);
+            while (time.isBefore(horizon)) {
+                if ((months & 1 << time.getMonthValue()) == 0) {
+                    time = time.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+                    continue;
+                }
+                if (!dayMatches(time.getDayOfMonth(), time.getDayOfWeek())) {
+                    time = time.toLocalDate().plusDays(1).atStartOfDay();
+                    continue;
+                }
+                int hour = nextBit(hours, time.getHour());
+                if (hour < 0) {
+                    time = time.toLocalDate().plusDays(1).atStartOfDay();
+                    continue;
+                }
+                if (hour != time.getHour()) {
+                    time = time.toLocalDate().atTime(hour, 0);
+                }
+                int minute = nextBit(minutes, time.getMinute());
+                if (minute < 0) {
+                    time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                    continue;
+                }
+                return time.withMinute(minute);
+            }
+            return null;
+        }
+
+        // Lowest set bit at or above from, or -1
+        private static int nextBit(long mask, int from) {
+            long remaining = mask & -1L << from;
+            return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+        }
     }
+
+    // What to do on recovery about runs that fell due while the process was down
+    enum MisfirePolicy {
+        FIRE_ONCE, // run once for all the missed fires, then carry on
+        FIRE_ALL,  // run once per missed fire (bounded), then carry on
+        SKIP       // drop the missed fires
+    }
+
     @Getter
     static class ScheduledJob {
+        private static final AtomicLong NEXT_ID = new AtomicLong();
+
+        long id;
         Job job;
         Schedule schedule;
+        MisfirePolicy misfirePolicy;
+        // Next run while queued, null while running or unscheduled; guarded by the scheduler lock
+        @Getter(AccessLevel.NONE)
+        Trigger pending;
+        @Getter(AccessLevel.NONE)
+        boolean removed;
 
         public ScheduledJob(Job job, Schedule schedule) {
+            this(job, schedule, MisfirePolicy.FIRE_ONCE);
+        }
+
+        public ScheduledJob(Job job, Schedule schedule, MisfirePolicy misfirePolicy) {
+            this(NEXT_ID.incrementAndGet(), job, schedule, misfirePolicy);
+        }
+
+        // Used when restoring a job with its original id
+        ScheduledJob(long id, Job job, Schedule schedule, MisfirePolicy misfirePolicy) {
+            this.id = id;
             this.job = job;
             this.schedule = schedule;
+            this.misfirePolicy = misfirePolicy;
+            reserveIdsThrough(id);
+        }
+
+        // After loading a store, so new jobs never reuse a stored id
+        static void reserveIdsThrough(long id) {
+            NEXT_ID.accumulateAndGet(id, Math::max);
         }
     }
+    // One pending run of a scheduled job; heapIndex is its slot in its lane's TriggerHeap
+    @Getter
+    static class Trigger {
+        ScheduledJob scheduledJob;
+        LocalDateTime fireTime;
+        long fireAtMillis;
+        // Breaks fire time ties first come, first served
+        long sequence;
+        int heapIndex = -1;
+
+        Trigger(ScheduledJob scheduledJob, LocalDateTime fireTime, long sequence) {
+            this.scheduledJob = scheduledJob;
+            setFireTime(fireTime, sequence);
+        }
+
+        void setFireTime(LocalDateTime fireTime, long sequence) {
+            this.fireTime = fireTime;
+            this.fireAtMillis = fireTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            this.sequence = sequence;
+        }
+
+        boolean before(Trigger other) {
+            return fireAtMillis != other.fireAtMillis ? fireAtMillis < other.fireAtMillis : sequence < other.sequence;
+        }
+    }
+
+    /**
+     * Binary min-heap of triggers by fire time. Each trigger remembers its slot, so removing or
+     * moving an arbitrary trigger is O(log n) rather than the O(n) search of PriorityQueue.remove.
+     */
+    static class TriggerHeap {
+        private Trigger[] heap = new Trigger[16];
+        private int size;
+
+        Trigger peek() {
+            return size == 0 ? null : heap[0];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(Trigger trigger) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            place(trigger, size++);
+            siftUp(trigger.heapIndex);
+        }
+
+        Trigger poll() {
+            Trigger head = peek();
+            if (head != null) {
+                removeAt(0);
+            }
+            return head;
+        }
+
+        void remove(Trigger trigger) {
+            if (trigger.heapIndex >= 0) {
+                removeAt(trigger.heapIndex);
+            }
+        }
+
+        // Restores order after trigger's fire time changed
+        void update(Trigger trigger) {
+            siftUp(trigger.heapIndex);
+            siftDown(trigger.heapIndex);
+        }
+
+        private void removeAt(int index) {
+            Trigger removed = heap[index];
+            Trigger last = heap[--size];
+            heap[size] = null;
+            removed.heapIndex = -1;
+            if (index < size) {
+                place(last, index);
+                update(last);
+            }
+        }
+
+        private void siftUp(int index) {
+            Trigger trigger = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!trigger.before(heap[parent])) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(trigger, index);
+        }
+
+        private void siftDown(int index) {
+            Trigger trigger = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].before(heap[child])) {
+                    child++;
+                }
+                if (!heap[child].before(trigger)) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(trigger, index);
+        }
+
+        private void place(Trigger trigger, int index) {
+            heap[index] = trigger;
+            trigger.heapIndex = index;
+        }
+    }
+
+    /**
+     * Due-time x priority index of every job's next run: one TriggerHeap per Priority, each
+     * ordered by fire time. Of the triggers that are due, the highest priority lane dispatches
+     * first, so HIGH jobs due at the same instant as LOW ones always go out ahead of them.
+     * Add, remove and reschedule are O(log n) and safe while the manager is running; the
+     * manager sleeps until the earliest head and is woken when a new earliest one arrives.
+     */
     @Getter
     static class JobScheduler {
        // List<ScheduledJob> jobs;
-          Queue<ScheduledJob> jobs;
+          Set<ScheduledJob> jobs;
+        @Getter(AccessLevel.NONE)
+        private final TriggerHeap[] lanes = new TriggerHeap[Priority.values().length];
+        @Getter(AccessLevel.NONE)
+        private final ReentrantLock lock = new ReentrantLock();
+        @Getter(AccessLevel.NONE)
+        private final Condition headChanged = lock.newCondition();
+        @Getter(AccessLevel.NONE)
+        private long sequence;
+        // Optional; when set, registrations, removals and fires are made durable
+        @Getter(AccessLevel.NONE)
+        private volatile JobStore store;
+
         public JobScheduler() {
             //this.jobs = new ArrayList<>();
-            this.jobs = new PriorityQueue<>((job1,job2) -> job2.getJob().getPriority().getKey() - job1.getJob().getPriority().getKey());
+            this.jobs = ConcurrentHashMap.newKeySet();
+            for (int lane = 0; lane < lanes.length; lane++) {
+                lanes[lane] = new TriggerHeap();
+            }
         }
 
         public void addScheduledJob(ScheduledJob job) {
-            this.jobs.add(job);
+            addScheduledJob(job, LocalDateTime.now());
+        }
+
+        /**
+         * Schedules the job's first run after the given time. With a store attached, a schedule
+         * it cannot write throws IllegalArgumentException and nothing is scheduled.
+         */
+        public void addScheduledJob(ScheduledJob job, LocalDateTime after) {
+            JobStore durable = store;
+            if (durable != null && !JobStore.canStore(job.getSchedule())) {
+                throw new IllegalArgumentException("Schedule type cannot be stored: " + job.getSchedule().getClass().getName()
+                        + ", job " + job.getJob().getName() + " not scheduled");
+            }
+            LocalDateTime fireTime = job.getSchedule().nextFireTime(after);
+            if (durable != null) {
+                durable.registered(job, after);
+            }
+            addScheduledJobAt(job, fireTime);
+        }
+
+        // Registers the job with a known first fire time, or none
+        private void addScheduledJobAt(ScheduledJob job, LocalDateTime fireTime) {
+            lock.lock();
+            try {
+                this.jobs.add(job);
+                job.removed = false;
+                if (fireTime != null) {
+                    queue(job, fireTime);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Bulk form for recovery: one lock and a presized job set; nothing is logged
+        void restoreScheduledJobs(List<ScheduledJob> restored, List<LocalDateTime> fireTimes) {
+            lock.lock();
+            try {
+                if (jobs.isEmpty()) {
+                    this.jobs = ConcurrentHashMap.newKeySet(restored.size());
+                }
+                for (int i = 0; i < restored.size(); i++) {
+                    ScheduledJob job = restored.get(i);
+                    this.jobs.add(job);
+                    job.removed = false;
+                    if (fireTimes.get(i) != null) {
+                        queue(job, fireTimes.get(i));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Unschedules the job; a run already dispatched finishes but is not requeued
+        public boolean removeScheduledJob(ScheduledJob job) {
+            lock.lock();
+            try {
+                job.removed = true;
+                if (job.pending != null) {
+                    lane(job).remove(job.pending);
+                    job.pending = null;
+                }
+                if (!jobs.remove(job)) {
+                    return false;
+                }
+            } finally {
+                lock.unlock();
+            }
+            JobStore durable = store;
+            if (durable != null) {
+                durable.removed(job);
+            }
+            return true;
+        }
+
+        // Set after recovery, so restored jobs are not logged a second time
+        public void setStore(JobStore store) {
+            this.store = store;
+        }
+
+        // Moves the job's next run to fireTime; with a store attached the move survives a restart
+        public void rescheduleJob(ScheduledJob job, LocalDateTime fireTime) {
+            lock.lock();
+            try {
+                if (job.removed) {
+                    return;
+                }
+                queue(job, fireTime);
+            } finally {
+                lock.unlock();
+            }
+            JobStore durable = store;
+            if (durable != null) {
+                durable.rescheduled(job, fireTime);
+            }
+        }
+
+        // Records the dispatched fire, then queues the run after it; runs missed while busy or asleep collapse into one
+        void reschedule(Trigger trigger, LocalDateTime now) {
+            ScheduledJob job = trigger.getScheduledJob();
+            JobStore durable = store;
+            if (durable != null) {
+                durable.fired(job, trigger.getFireTime());
+            }
+            LocalDateTime from = trigger.getFireTime().isAfter(now) ? trigger.getFireTime() : now;
+            LocalDateTime fireTime = job.getSchedule().nextFireTime(from);
+            if (fireTime == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                // Not if it was removed, or already given a new time, while it ran
+                if (!job.removed && job.pending == null) {
+                    queue(job, fireTime);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Caller holds lock
+        private void queue(ScheduledJob job, LocalDateTime fireTime) {
+            TriggerHeap lane = lane(job);
+            Trigger trigger = job.pending;
+            if (trigger == null) {
+                trigger = new Trigger(job, fireTime, sequence++);
+                job.pending = trigger;
+                lane.add(trigger);
+            } else {
+                trigger.setFireTime(fireTime, sequence++);
+                lane.update(trigger);
+            }
+            if (lane.peek() == trigger) {
+                headChanged.signal();
+            }
+        }
+
+        private TriggerHeap lane(ScheduledJob job) {
+            return lanes[job.getJob().getPriority().ordinal()];
+        }
+
+        // Caller holds lock. Highest priority lane whose head is due at nowMillis, or null
+        private TriggerHeap dueLane(long nowMillis) {
+            for (TriggerHeap lane : lanes) {
+                Trigger head = lane.peek();
+                if (head != null && head.getFireAtMillis() <= nowMillis) {
+                    return lane;
+                }
+            }
+            return null;
+        }
+
+        // Caller holds lock
+        private Trigger take(TriggerHeap lane) {
+            Trigger trigger = lane.poll();
+            trigger.getScheduledJob().pending = null;
+            return trigger;
+        }
+
+        // Next trigger due at or before now, highest priority first, without waiting
+        Trigger pollDue(LocalDateTime now) {
+            return pollDue(now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+
+        Trigger pollDue(long nowMillis) {
+            lock.lock();
+            try {
+                TriggerHeap lane = dueLane(nowMillis);
+                return lane == null ? null : take(lane);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Blocks until a trigger is due by the wall clock
+        Trigger awaitDue() throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (true) {
+                    long nowMillis = System.currentTimeMillis();
+                    TriggerHeap due = dueLane(nowMillis);
+                    if (due != null) {
+                        return take(due);
+                    }
+                    long earliest = Long.MAX_VALUE;
+                    for (TriggerHeap lane : lanes) {
+                        Trigger head = lane.peek();
+                        if (head != null) {
+                            earliest = Math.min(earliest, head.getFireAtMillis());
+                        }
+                    }
+                    if (earliest == Long.MAX_VALUE) {
+                        headChanged.await();
+                    } else {
+                        headChanged.await(earliest - nowMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int pendingTriggers() {
+            lock.lock();
+            try {
+                int pending = 0;
+                for (TriggerHeap lane : lanes) {
+                    pending += lane.size();
+                }
+                return pending;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Where JobManager sends due jobs; submit must not block the scheduler thread
+    interface JobDispatcher {
+        void submit(Job job);
+    }
+
+    /**
+     * Runs job bodies off the scheduler thread. Every worker owns one deque per Priority lane;
+     * submissions are spread round-robin over the workers. A worker serves its lanes in a
+     * weighted order (HIGH 4 : MEDIUM 2 : LOW 1) so LOW still progresses under HIGH load. Jobs are
+     * added at the tail and the owner takes from the head, so a lane runs oldest first; when its
+     * own deques are empty a worker steals from the tail of the others', highest lane first.
+     * close() stops new submissions, lets the workers finish every queued job and waits for them.
+     */
+    static class JobExecutor implements JobDispatcher, AutoCloseable {
+        private static final Priority[] LANES = Priority.values();
+        private static final int[] LANE_ORDER = {0, 0, 0, 0, 1, 1, 2};
+
+        private final Worker[] workers;
+        private final LaneMetrics[] metrics = new LaneMetrics[LANES.length];
+        private final AtomicInteger nextWorker = new AtomicInteger();
+        private volatile boolean closed;
+
+        public JobExecutor(int workerCount) {
+            for (int lane = 0; lane < LANES.length; lane++) {
+                metrics[lane] = new LaneMetrics();
+            }
+            workers = new Worker[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new Worker(i);
+            }
+            for (Worker worker : workers) {
+                Thread thread = new Thread(worker, "job-worker-" + worker.id);
+                thread.setDaemon(true);
+                worker.thread = thread;
+                thread.start();
+            }
+        }
+
+        public JobExecutor() {
+            this(Runtime.getRuntime().availableProcessors());
+        }
+
+        // Never blocks: the deques are unbounded. Throws RejectedExecutionException once closed
+        @Override
+        public void submit(Job job) {
+            if (closed) {
+                throw new RejectedExecutionException("Job executor closed, job " + job.getName() + " not run");
+            }
+            int lane = job.getPriority().ordinal();
+            metrics[lane].queued.incrementAndGet();
+            metrics[lane].submitted.increment();
+            Worker worker = workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+            Task task = new Task(job, System.nanoTime());
+            worker.lanes[lane].offerLast(task);
+            // Raced with close(): the workers may have drained and exited already. A worker that took the task runs it
+            if (closed && worker.lanes[lane].remove(task)) {
+                metrics[lane].queued.decrementAndGet();
+                metrics[lane].submitted.decrement();
+                throw new RejectedExecutionException("Job executor closed, job " + job.getName() + " not run");
+            }
+            if (worker.parked) {
+                worker.wake();
+                return;
+            }
+            // The owner is busy, possibly with a slow job: wake an idle worker to steal the task
+            for (Worker idle : workers) {
+                if (idle.parked) {
+                    idle.wake();
+                    return;
+                }
+            }
+        }
+
+        public LaneMetrics getMetrics(Priority priority) {
+            return metrics[priority.ordinal()];
+        }
+
+        // Waits for the workers to run every job already queued, then for them to exit
+        @Override
+        public void close() {
+            closed = true;
+            for (Worker worker : workers) {
+                worker.running = false;
+                LockSupport.unpark(worker.thread);
+            }
+            for (Worker worker : workers) {
+                try {
+                    worker.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private Task steal(Worker thief) {
+            for (int lane = 0; lane < LANES.length; lane++) {
+                for (int i = 1; i < workers.length; i++) {
+                    Task task = workers[(thief.id + i) % workers.length].lanes[lane].pollLast();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        static class Task {
+            final Job job;
+            final long enqueuedNanos;
+
+            Task(Job job, long enqueuedNanos) {
+                this.job = job;
+                this.enqueuedNanos = enqueuedNanos;
+            }
+        }
+
+        class Worker implements Runnable {
+            final int id;
+            final Deque<Task>[] lanes;
+            Thread thread;
+            int cursor;
+            volatile boolean parked;
+            volatile boolean running = true;
+
+            @SuppressWarnings("unchecked")
+            Worker(int id) {
+                this.id = id;
+                this.lanes = (Deque<Task>[]) new Deque<?>[LANES.length];
+                for (int lane = 0; lane < LANES.length; lane++) {
+                    lanes[lane] = new ConcurrentLinkedDeque<>();
+                }
+            }
+
+            void wake() {
+                if (parked) {
+                    parked = false;
+                    LockSupport.unpark(thread);
+                }
+            }
+
+            private Task next() {
+                int preferred = LANE_ORDER[cursor];
+                cursor = (cursor + 1) % LANE_ORDER.length;
+                Task task = lanes[preferred].pollFirst();
+                for (int lane = 0; task == null && lane < LANES.length; lane++) {
+                    task = lanes[lane].pollFirst();
+                }
+                return task != null ? task : steal(this);
+            }
+
+            // Once stopped, keeps running and stealing until every worker's lanes are empty
+            @Override
+            public void run() {
+                while (true) {
+                    Task task = next();
+                    if (task == null) {
+                        if (!running) {
+                            return;
+                        }
+                        parked = true;
+                        // Re-check after publishing parked so a concurrent submit or close cannot be missed
+                        task = next();
+                        if (task == null) {
+                            if (running) {
+                                LockSupport.park(this);
+                            }
+                            parked = false;
+                            continue;
+                        }
+                        parked = false;
+                    }
+                    execute(task);
+                }
+            }
+
+            private void execute(Task task) {
+                LaneMetrics lane = metrics[task.job.getPriority().ordinal()];
+                lane.queued.decrementAndGet();
+                long started = System.nanoTime();
+                lane.waitNanos.add(started - task.enqueuedNanos);
+                lane.maxWaitNanos.accumulate(started - task.enqueuedNanos);
+                // Errors are caught too: letting one escape would kill this worker and strand its lanes
+                try {
+                    task.job.execute();
+                } catch (Throwable e) {
+                    lane.failed.increment();
+                    System.out.println("Job " + task.job.getName() + " failed: " + e);
+                }
+                lane.runNanos.add(System.nanoTime() - started);
+                lane.completed.increment();
+            }
+        }
+    }
+
+    /**
+     * Opt-in mode for I/O-bound jobs: each job runs on its own virtual thread, so thousands can
+     * sit blocked at once. Virtual threads need a Java 21 runtime; on older ones this falls back
+     * to a bounded pool of daemon platform threads, with further jobs queued (see isVirtual()).
+     * A cap per Job class bounds how many of that type run at once. Jobs over the cap wait in
+     * the type's queue and are started as running ones finish; submit itself never waits.
+     */
+    static class VirtualThreadJobExecutor implements JobDispatcher, AutoCloseable {
+        public static final int DEFAULT_FALLBACK_THREADS = 256;
+
+        private final ExecutorService threads;
+        private final boolean virtual;
+        private final int defaultCap;
+        private final Map<Class<?>, TypeLimit> limits = new ConcurrentHashMap<>();
+
+        // fallbackThreads bounds the platform threads used when virtual threads are unavailable
+        public VirtualThreadJobExecutor(int defaultCap, int fallbackThreads) {
+            this.defaultCap = defaultCap;
+            ExecutorService perTask = newVirtualThreadPerTaskExecutor();
+            this.virtual = perTask != null;
+            this.threads = perTask != null ? perTask : newFallbackPool(fallbackThreads);
+        }
+
+        public VirtualThreadJobExecutor(int defaultCap) {
+            this(defaultCap, DEFAULT_FALLBACK_THREADS);
+        }
+
+        public VirtualThreadJobExecutor() {
+            this(Integer.MAX_VALUE);
+        }
+
+        // Idle threads time out, so a quiet executor holds no platform threads
+        private static ExecutorService newFallbackPool(int threads) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "job-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+
+        // Looked up reflectively so the code still builds and runs on Java 17
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+
+        public boolean isVirtual() {
+            return virtual;
+        }
+
+        public void setCap(Class<? extends Job> jobType, int cap) {
+            limits.computeIfAbsent(jobType, type -> new TypeLimit(cap)).cap = cap;
+        }
+
+        public TypeLimit getLimit(Class<? extends Job> jobType) {
+            return limits.computeIfAbsent(jobType, type -> new TypeLimit(defaultCap));
+        }
+
+        @Override
+        public void submit(Job job) {
+            TypeLimit limit = getLimit(job.getClass());
+            if (limit.tryAcquire()) {
+                launch(job, limit);
+                return;
+            }
+            limit.waiting.add(job);
+            // A running job may have finished between the failed acquire and the add
+            drain(limit);
+        }
+
+        private void launch(Job job, TypeLimit limit) {
+            threads.execute(() -> {
+                try {
+                    job.execute();
+                } catch (Throwable e) {
+                    // An Error too, so it is counted as failed instead of escaping into the pool thread
+                    limit.failed.increment();
+                    System.out.println("Job " + job.getName() + " failed: " + e);
+                } finally {
+                    limit.completed.increment();
+                    limit.running.decrementAndGet();
+                    drain(limit);
+                }
+            });
+        }
+
+        private void drain(TypeLimit limit) {
+            while (!limit.waiting.isEmpty() && limit.tryAcquire()) {
+                Job next = limit.waiting.poll();
+                if (next == null) {
+                    limit.running.decrementAndGet();
+                    return;
+                }
+                launch(next, limit);
+            }
+        }
+
+        @Override
+        public void close() {
+            threads.shutdown();
+        }
+    }
+
+    @Getter
+    static class TypeLimit {
+        volatile int cap;
+        final AtomicInteger running = new AtomicInteger();
+        final Queue<Job> waiting = new ConcurrentLinkedQueue<>();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        TypeLimit(int cap) {
+            this.cap = cap;
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = running.get();
+                if (current >= cap) {
+                    return false;
+                }
+            } while (!running.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+
+    // Per-Priority counters; latency is time from dispatch to start (wait) and the body's run time
+    @Getter
+    static class LaneMetrics {
+        final AtomicLong queued = new AtomicLong();
+        final LongAdder submitted = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder runNanos = new LongAdder();
+
+        public long queueDepth() {
+            return queued.get();
+        }
+
+        public double averageWaitMicros() {
+            long done = completed.sum();
+            return done == 0 ? 0 : waitNanos.sum() / 1000.0 / done;
+        }
+
+        public double averageRunMicros() {
+            long done = completed.sum();
+            return done == 0 ? 0 : runNanos.sum() / 1000.0 / done;
         }
     }
 
     static class JobManager {
         public static JobManager INSTANCE = new JobManager();
 
+        // Created on first dispatch so building the manager starts no threads
+        private volatile JobDispatcher executor;
+
         private JobManager() {
         }
 
-        private void runJobs(JobScheduler jobScheduler) {
-            LocalDateTime localDateTime = LocalDateTime.now();
+        // A JobExecutor for CPU-bound work or a VirtualThreadJobExecutor for I/O-bound jobs
+        public void setExecutor(JobDispatcher executor) {
+            this.executor = executor;
+        }
 
-            for(ScheduledJob scheduledJob : jobScheduler.getJobs()) {
-                if(scheduledJob.getSchedule().shouldRun(localDateTime)) {
-                    scheduledJob.getJob().execute();
+        public JobDispatcher getExecutor() {
+            JobDispatcher current = executor;
+            if (current == null) {
+                synchronized (this) {
+                    if (executor == null) {
+                        executor = new JobExecutor();
+                    }
+                    current = executor;
                 }
             }
+            return current;
+        }
+
+        void runJobs(JobScheduler jobScheduler) {
+            runJobs(jobScheduler, LocalDateTime.now());
+        }
+
+        // Runs only the jobs due at or before now and queues their next runs
+        void runJobs(JobScheduler jobScheduler, LocalDateTime now) {
+            Trigger trigger;
+            JobDispatcher jobs = getExecutor();
+            long nowMillis = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            while ((trigger = jobScheduler.pollDue(nowMillis)) != null) {
+                jobs.submit(trigger.getScheduledJob().getJob());
+                jobScheduler.reschedule(trigger, now);
+            }
         }
 
+        // Sleeps until the next job is due rather than polling, so an idle scheduler uses no CPU.
+        // Job bodies run on the executor, never on this thread.
         public void start(JobScheduler jobScheduler) throws InterruptedException {
+            JobDispatcher jobs = getExecutor();
             while(true) {
-                runJobs(jobScheduler);
-                Thread.sleep(Duration.ofMinutes(1).toSeconds());
+                Trigger trigger = jobScheduler.awaitDue();
+                jobs.submit(trigger.getScheduledJob().getJob());
+                jobScheduler.reschedule(trigger, LocalDateTime.now());
             }
         }
 
@@ -0,0 +1,610 @@
+package ooad;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Durable registry of scheduled jobs: an append-only log of registrations, removals and fires
+ * in numbered segment files, plus a snapshot that compact() folds closed segments into.
+ * Appends go to an in-memory buffer that a background flusher writes and forces every commit
+ * interval, so a crash loses at most that window. Opening the store reloads the snapshot and
+ * segments in bulk; recover() then re-registers every job and applies its MisfirePolicy to
+ * the fires that fell due while the process was down. A manual reschedule that has not fired
+ * yet is restored as the job's next fire time.
+ *
+ * Jobs are rebuilt by class name through registerJobType; EmailJob and BackupJob are known.
+ * A stored job of an unregistered type is kept, through compactions, until a recover() with
+ * its type registered. Daily, weekly, hourly, custom and cron schedules can be stored; the
+ * scheduler refuses jobs with other schedules, with IllegalArgumentException, while a store is attached.
+ *
+ * Log record: length (4) | type (1) | payload. A length past the end of the file marks a torn tail.
+ * REGISTER: id (8) | registered at (12) | misfire policy (1) | priority (1) | job class | name | schedule
+ * REMOVE: id (8)
+ * FIRED: id (8) | fire time (12)
+ * RESCHEDULE: id (8) | new next fire time (12)
+ * Times are wall-clock epoch seconds (8) and nanos (4); strings are a length (2) and UTF-8 bytes.
+ */
+public class JobStore implements Closeable {
+
+    private static final byte REGISTER = 1;
+    private static final byte REMOVE = 2;
+    private static final byte FIRED = 3;
+    private static final byte RESCHEDULE = 4;
+
+    private static final byte DAILY = 0;
+    private static final byte WEEKLY = 1;
+    private static final byte HOURLY = 2;
+    private static final byte CUSTOM = 3;
+    private static final byte CRON = 4;
+
+    // FIRE_ALL never replays more than this many missed fires of one job
+    static final int MAX_CATCH_UP = 1000;
+
+    private static final String SEGMENT_PREFIX = "jobs-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_FILE = "jobs-snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x4a4f4232;
+    private static final JobRunner.Priority[] PRIORITIES = JobRunner.Priority.values();
+    private static final JobRunner.MisfirePolicy[] POLICIES = JobRunner.MisfirePolicy.values();
+
+    private final Path directory;
+    private final long commitIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, BiFunction<String, JobRunner.Priority, JobRunner.Job>> jobTypes = new ConcurrentHashMap<>();
+    private final Thread flusher;
+
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private FileChannel segment;
+    private long segmentNumber;
+    private volatile boolean closed;
+
+    public JobStore(Path directory, long commitIntervalNanos) throws IOException {
+        this.directory = directory;
+        this.commitIntervalNanos = commitIntervalNanos;
+        Files.createDirectories(directory);
+        long firstSegment = readSnapshot();
+        List<Long> segments = listSegments();
+        for (long number : segments) {
+            if (number >= firstSegment) {
+                replaySegment(number);
+            }
+        }
+        // New jobs must not reuse a stored id, even one recover() cannot restore
+        for (long id : entries.keySet()) {
+            JobRunner.ScheduledJob.reserveIdsThrough(id);
+        }
+        // Never append after a possibly torn tail: always start a fresh segment
+        long last = segments.isEmpty() ? firstSegment : Math.max(firstSegment, segments.get(segments.size() - 1) + 1);
+        openSegment(Math.max(1, last));
+        registerJobType(JobRunner.EmailJob.class, JobRunner.EmailJob::new);
+        registerJobType(JobRunner.BackupJob.class, JobRunner.BackupJob::new);
+        this.flusher = new Thread(this::flushLoop, "job-store-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // 10 ms group commit window
+    public JobStore(Path directory) throws IOException {
+        this(directory, 10_000_000L);
+    }
+
+    public void registerJobType(Class<? extends JobRunner.Job> jobType, BiFunction<String, JobRunner.Priority, JobRunner.Job> factory) {
+        jobTypes.put(jobType.getName(), factory);
+    }
+
+    // Whether a registration with this schedule can be written
+    public static boolean canStore(JobRunner.Schedule schedule) {
+        return schedule instanceof JobRunner.DailySchedule || schedule instanceof JobRunner.WeeklySchedule
+                || schedule instanceof JobRunner.HourlySchedule || schedule instanceof JobRunner.CustomSchedule
+                || schedule instanceof JobRunner.CronSchedule;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void registered(JobRunner.ScheduledJob job, LocalDateTime registeredAt) {
+        ByteBuffer payload = ByteBuffer.allocate(256);
+        payload = encodeRegistration(payload, job, registeredAt);
+        byte[] registration = new byte[payload.position()];
+        payload.flip().get(registration);
+        lock.lock();
+        try {
+            entries.put(job.getId(), new Entry(registration));
+            append(REGISTER, registration.length).put(registration);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void removed(JobRunner.ScheduledJob job) {
+        lock.lock();
+        try {
+            if (entries.remove(job.getId()) != null) {
+                append(REMOVE, 8).putLong(job.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void fired(JobRunner.ScheduledJob job, LocalDateTime fireTime) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(job.getId());
+            if (entry == null) {
+                return;
+            }
+            entry.fired(fireTime.toEpochSecond(ZoneOffset.UTC), fireTime.getNano());
+            append(FIRED, 20).putLong(job.getId()).putLong(entry.firedSeconds).putInt(entry.firedNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void rescheduled(JobRunner.ScheduledJob job, LocalDateTime fireTime) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(job.getId());
+            if (entry == null) {
+                return;
+            }
+            entry.rescheduled(fireTime.toEpochSecond(ZoneOffset.UTC), fireTime.getNano());
+            append(RESCHEDULE, 20).putLong(job.getId()).putLong(entry.rescheduledSeconds).putInt(entry.rescheduledNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers every stored job with the scheduler and handles misfires as of now. Missed
+     * runs that are replayed go straight to the dispatcher. Afterwards the scheduler logs
+     * to this store. Returns the number of jobs restored.
+     */
+    public int recover(JobRunner.JobScheduler scheduler, JobRunner.JobDispatcher dispatcher, LocalDateTime now) {
+        List<Map.Entry<Long, Entry>> stored;
+        lock.lock();
+        try {
+            stored = new ArrayList<>(entries.entrySet());
+        } finally {
+            lock.unlock();
+        }
+        // Restore in registration order so ids and tie-breaking match the original run
+        stored.sort(Map.Entry.comparingByKey());
+        List<JobRunner.ScheduledJob> restored = new ArrayList<>(stored.size());
+        List<LocalDateTime> fireTimes = new ArrayList<>(stored.size());
+        for (Map.Entry<Long, Entry> storedEntry : stored) {
+            Entry entry = storedEntry.getValue();
+            ByteBuffer registration = ByteBuffer.wrap(entry.registration);
+            long id = registration.getLong();
+            LocalDateTime anchor = readTime(registration);
+            JobRunner.MisfirePolicy policy = POLICIES[registration.get()];
+            JobRunner.Priority priority = PRIORITIES[registration.get()];
+            String jobType = readString(registration);
+            String name = readString(registration);
+            BiFunction<String, JobRunner.Priority, JobRunner.Job> factory = jobTypes.get(jobType);
+            if (factory == null) {
+                // The record stays in entries, so compaction keeps it and its id stays reserved
+                System.out.println("Unknown job type " + jobType + ", job " + name + " kept in the store but not restored");
+                continue;
+            }
+            JobRunner.Schedule schedule = readSchedule(registration);
+            JobRunner.ScheduledJob job = new JobRunner.ScheduledJob(id, factory.apply(name, priority), schedule, policy);
+            if (entry.hasFired) {
+                anchor = LocalDateTime.ofEpochSecond(entry.firedSeconds, entry.firedNanos, ZoneOffset.UTC);
+            }
+            LocalDateTime next = entry.isRescheduled
+                    ? LocalDateTime.ofEpochSecond(entry.rescheduledSeconds, entry.rescheduledNanos, ZoneOffset.UTC)
+                    : schedule.nextFireTime(anchor);
+            if (next != null && !next.isAfter(now)) {
+                next = handleMisfire(job, next, now, dispatcher);
+            }
+            restored.add(job);
+            fireTimes.add(next);
+        }
+        scheduler.restoreScheduledJobs(restored, fireTimes);
+        scheduler.setStore(this);
+        return restored.size();
+    }
+
+    // Runs the missed fires the policy asks for and returns the first fire time after now
+    private LocalDateTime handleMisfire(JobRunner.ScheduledJob job, LocalDateTime missed, LocalDateTime now, JobRunner.JobDispatcher dispatcher) {
+        JobRunner.Schedule schedule = job.getSchedule();
+        switch (job.getMisfirePolicy()) {
+            case FIRE_ONCE:
+                dispatcher.submit(job.getJob());
+                fired(job, now);
+                break;
+            case FIRE_ALL:
+                for (int runs = 0; missed != null && !missed.isAfter(now) && runs < MAX_CATCH_UP; runs++) {
+                    dispatcher.submit(job.getJob());
+                    missed = schedule.nextFireTime(missed);
+                }
+                fired(job, now);
+                break;
+            case SKIP:
+                break;
+        }
+        return schedule.nextFireTime(now);
+    }
+
+    /**
+     * Rolls to a fresh segment, writes every live job and its last fire to a new snapshot
+     * and deletes the segments it covers. Appends only wait for the roll and the copy.
+     */
+    public void compact() throws IOException {
+        long firstLiveSegment;
+        List<Map.Entry<Long, Entry>> live;
+        lock.lock();
+        try {
+            writePending();
+            segment.force(false);
+            segment.close();
+            openSegment(segmentNumber + 1);
+            firstLiveSegment = segmentNumber;
+            live = new ArrayList<>(entries.size());
+            for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+                live.add(Map.entry(entry.getKey(), entry.getValue().copy()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        writeSnapshot(live, firstLiveSegment);
+        for (long number : listSegments()) {
+            if (number < firstLiveSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            writePending();
+            segment.force(false);
+            segment.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds lock. Returns the staging buffer positioned for the payload
+    private ByteBuffer append(byte type, int payloadLength) {
+        int needed = 5 + payloadLength;
+        if (pending.remaining() < needed) {
+            writePending();
+            if (pending.capacity() < needed) {
+                pending = ByteBuffer.allocate(needed);
+            }
+        }
+        return pending.putInt(1 + payloadLength).put(type);
+    }
+
+    // Caller holds lock
+    private void writePending() {
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                segment.write(pending);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(commitIntervalNanos);
+            FileChannel dirty;
+            lock.lock();
+            try {
+                if (pending.position() == 0) {
+                    continue;
+                }
+                writePending();
+                dirty = segment;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                // Older segments were forced when they were rolled
+                dirty.force(false);
+            } catch (IOException e) {
+                // Closed by a concurrent roll, which forced it first
+            }
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        this.segment = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.segmentNumber = number;
+    }
+
+    private void replaySegment(long number) throws IOException {
+        MappedByteBuffer buffer = map(segmentPath(number));
+        while (buffer.remaining() >= 5) {
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break; // torn tail from a crash mid-write
+            }
+            byte type = buffer.get();
+            int end = buffer.position() + length - 1;
+            long id = buffer.getLong(buffer.position());
+            if (type == REGISTER) {
+                byte[] registration = new byte[length - 1];
+                buffer.get(registration);
+                entries.put(id, new Entry(registration));
+            } else if (type == REMOVE) {
+                entries.remove(id);
+            } else if (type == FIRED) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    entry.fired(buffer.getLong(buffer.position() + 8), buffer.getInt(buffer.position() + 16));
+                }
+            } else if (type == RESCHEDULE) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    entry.rescheduled(buffer.getLong(buffer.position() + 8), buffer.getInt(buffer.position() + 16));
+                }
+            }
+            buffer.position(end);
+        }
+    }
+
+    /*
+     * Snapshot layout: magic (4) | first live segment (8) | job count (4), then per job:
+     * registration length (4) | registration | has fired (1) | last fire time (12) |
+     * rescheduled (1) | rescheduled fire time (12)
+     */
+    private void writeSnapshot(List<Map.Entry<Long, Entry>> live, long firstLiveSegment) throws IOException {
+        long size = 16;
+        for (Map.Entry<Long, Entry> entry : live) {
+            size += 30 + entry.getValue().registration.length;
+        }
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(firstLiveSegment).putInt(live.size());
+            for (Map.Entry<Long, Entry> stored : live) {
+                Entry entry = stored.getValue();
+                buffer.putInt(entry.registration.length).put(entry.registration);
+                buffer.put((byte) (entry.hasFired ? 1 : 0)).putLong(entry.firedSeconds).putInt(entry.firedNanos);
+                buffer.put((byte) (entry.isRescheduled ? 1 : 0)).putLong(entry.rescheduledSeconds).putInt(entry.rescheduledNanos);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns the first segment not covered by the snapshot
+    private long readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        MappedByteBuffer buffer = map(path);
+        if (buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a job store snapshot: " + path);
+        }
+        long firstLiveSegment = buffer.getLong();
+        int jobs = buffer.getInt();
+        for (int i = 0; i < jobs; i++) {
+            byte[] registration = new byte[buffer.getInt()];
+            buffer.get(registration);
+            Entry entry = new Entry(registration);
+            boolean hasFired = buffer.get() != 0;
+            long seconds = buffer.getLong();
+            int nanos = buffer.getInt();
+            if (hasFired) {
+                entry.fired(seconds, nanos);
+            }
+            boolean isRescheduled = buffer.get() != 0;
+            long rescheduledSeconds = buffer.getLong();
+            int rescheduledNanos = buffer.getInt();
+            if (isRescheduled) {
+                entry.rescheduled(rescheduledSeconds, rescheduledNanos);
+            }
+            entries.put(ByteBuffer.wrap(registration).getLong(), entry);
+        }
+        return firstLiveSegment;
+    }
+
+    private ByteBuffer encodeRegistration(ByteBuffer buffer, JobRunner.ScheduledJob job, LocalDateTime registeredAt) {
+        buffer.putLong(job.getId());
+        buffer = writeTime(buffer, registeredAt);
+        buffer.put((byte) job.getMisfirePolicy().ordinal());
+        buffer.put((byte) job.getJob().getPriority().ordinal());
+        buffer = writeString(buffer, job.getJob().getClass().getName());
+        buffer = writeString(buffer, job.getJob().getName());
+        JobRunner.Schedule schedule = job.getSchedule();
+        if (schedule instanceof JobRunner.DailySchedule) {
+            buffer = ensure(buffer, 2);
+            buffer.put(DAILY).put((byte) (int) ((JobRunner.DailySchedule) schedule).getHour());
+        } else if (schedule instanceof JobRunner.WeeklySchedule) {
+            int days = 0;
+            for (DayOfWeek day : ((JobRunner.WeeklySchedule) schedule).getDayOfWeeks()) {
+                days |= 1 << day.ordinal();
+            }
+            buffer = ensure(buffer, 2);
+            buffer.put(WEEKLY).put((byte) days);
+        } else if (schedule instanceof JobRunner.HourlySchedule) {
+            buffer = ensure(buffer, 1);
+            buffer.put(HOURLY);
+        } else if (schedule instanceof JobRunner.CustomSchedule) {
+            List<LocalDateTime> times = new ArrayList<>(((JobRunner.CustomSchedule) schedule).getLocalDateTimes());
+            buffer = ensure(buffer, 5);
+            buffer.put(CUSTOM).putInt(times.size());
+            for (LocalDateTime time : times) {
+                buffer = writeTime(buffer, time);
+            }
+        } else if (schedule instanceof JobRunner.CronSchedule) {
+            buffer = ensure(buffer, 1);
+            buffer.put(CRON);
+            buffer = writeString(buffer, ((JobRunner.CronSchedule) schedule).getExpression());
+        } else {
+            throw new IllegalArgumentException("Schedule type cannot be stored: " + schedule.getClass().getName());
+        }
+        return buffer;
+    }
+
+    private static JobRunner.Schedule readSchedule(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        switch (kind) {
+            case DAILY:
+                return new JobRunner.DailySchedule((int) buffer.get());
+            case WEEKLY:
+                JobRunner.WeeklySchedule weekly = new JobRunner.WeeklySchedule();
+                int days = buffer.get();
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if ((days & 1 << day.ordinal()) != 0) {
+                        weekly.addDayToSchedule(day);
+                    }
+                }
+                return weekly;
+            case HOURLY:
+                return new JobRunner.HourlySchedule();
+            case CUSTOM:
+                JobRunner.CustomSchedule custom = new JobRunner.CustomSchedule();
+                int count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    custom.addCustomSchedule(readTime(buffer));
+                }
+                return custom;
+            case CRON:
+                return new JobRunner.CronSchedule(readString(buffer));
+            default:
+                throw new IllegalStateException("Unknown schedule kind " + kind);
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+    private static ByteBuffer writeTime(ByteBuffer buffer, LocalDateTime time) {
+        return ensure(buffer, 12).putLong(time.toEpochSecond(ZoneOffset.UTC)).putInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static ByteBuffer writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ensure(buffer, 2 + bytes.length).putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    // A stored registration, the job's last fire and any pending reschedule; registration starts with the job id
+    static class Entry {
+        final byte[] registration;
+        boolean hasFired;
+        long firedSeconds;
+        int firedNanos;
+        boolean isRescheduled;
+        long rescheduledSeconds;
+        int rescheduledNanos;
+
+        Entry(byte[] registration) {
+            this.registration = registration;
+        }
+
+        // A fire at or after the rescheduled time consumes the reschedule
+        void fired(long seconds, int nanos) {
+            this.hasFired = true;
+            this.firedSeconds = seconds;
+            this.firedNanos = nanos;
+            if (isRescheduled && (rescheduledSeconds < seconds || rescheduledSeconds == seconds && rescheduledNanos <= nanos)) {
+                isRescheduled = false;
+            }
+        }
+
+        void rescheduled(long seconds, int nanos) {
+            this.isRescheduled = true;
+            this.rescheduledSeconds = seconds;
+            this.rescheduledNanos = nanos;
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(registration);
+            copy.hasFired = hasFired;
+            copy.firedSeconds = firedSeconds;
+            copy.firedNanos = firedNanos;
+            copy.isRescheduled = isRescheduled;
+            copy.rescheduledSeconds = rescheduledSeconds;
+            copy.rescheduledNanos = rescheduledNanos;
+            return copy;
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class LibraryManagement {
 
         public Member(String id, String phone, String name, String email) {
             super(id, phone, name, email);
+            this.booksCheckedOut = 0;
         }
         public void incrementBooksCheckedOut() {
             booksCheckedOut++;
@@ -132,6 +133,7 @@ public class LibraryManagement {
         private Map<String, Loan> activeLoans;
         public static Library INSTANCE = new Library();
         private Library() {
+            catalog = new Catalog();
             bookItems = new HashMap<>();
             activeLoans = new HashMap<>();
         }
@@ -150,11 +152,11 @@ public class LibraryManagement {
                 return null;
             }
             BookItem bookItem = bookItems.get(barcode);
-            if (bookItem == null || !bookItem.isBorrowed()) { // bookItem.getBook.isAvailable
+            if (bookItem == null || bookItem.isBorrowed()) { // bookItem.getBook.isAvailable
                 System.out.println("Book is not available.");
                 return null;
             }
-            bookItem.isBorrowed();
+            bookItem.borrowed();
             Loan loan = new Loan(bookItem, member, new Date());
             activeLoans.put(barcode, loan);
             member.incrementBooksCheckedOut();
@@ -2,10 +2,35 @@ package ooad;
 
 import lombok.Getter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public  class MovieTicketSystem {
 
@@ -13,13 +38,19 @@ public  class MovieTicketSystem {
         private String title;
         private String description;
         private String genre;
+        private String language;
         private Date releaseDate;
         private List<ShowTime> showtimes;
 
         public Movie(String title, String description, String genre, Date releaseDate) {
+            this(title, description, genre, null, releaseDate);
+        }
+
+        public Movie(String title, String description, String genre, String language, Date releaseDate) {
             this.title = title;
             this.description = description;
             this.genre = genre;
+            this.language = language;
             this.releaseDate = releaseDate;
             this.showtimes = new ArrayList<>();
         }
@@ -28,6 +59,18 @@ public  class MovieTicketSystem {
             return title;
         }
 
+        public String getGenre() {
+            return genre;
+        }
+
+        public String getLanguage() {
+            return language;
+        }
+
+        public Date getReleaseDate() {
+            return releaseDate;
+        }
+
         public List<ShowTime> getShowtimes() {
             return showtimes;
         }
@@ -41,65 +84,272 @@ public  class MovieTicketSystem {
     // Multiplex
     static class Cinema {
         String name;
+        String city;
         List<Screen> screens;
+        // Copy-on-write: screens are added rarely and looked up on every request
+        private volatile IntMap<Screen> screensById = new IntMap<>();
+        private final ShowTimeIndex showtimes = new ShowTimeIndex();
 
         public Cinema(String name) {
+            this(name, null);
+        }
+
+        public Cinema(String name, String city) {
             this.name = name;
+            this.city = city;
             this.screens = new ArrayList<>();
         }
 
+        public String getCity() {
+            return city;
+        }
 
-        public void addScreen(Screen screen) {
+        public synchronized void addScreen(Screen screen) {
+            synchronized (screen) {
+                screen.cinema = this;
+                for (ShowTime showTime : screen.getShowtimes()) {
+                    showtimes.add(showTime);
+                }
+            }
             this.screens.add(screen);
+            IntMap<Screen> copy = screensById.copy();
+            copy.put(screen.getScreenId(), screen);
+            screensById = copy;
+        }
+
+        public Screen getScreen(int screenNumber) {
+            return screensById.get(screenNumber);
         }
+
         public List<ShowTime> getShowtimesForScreen(int screenNumber) {
-            return screens.stream()
-                    .filter(screen -> screen.getScreenId() == screenNumber)
-                    .map(Screen::getShowtimes)
-                    .findFirst()
-                    .orElse(null);
+            Screen screen = screensById.get(screenNumber);
+            return screen == null ? null : screen.getShowtimes();
+        }
+
+        // Showtimes across all screens starting in [from, to), ordered by time
+        public List<ShowTime> getShowtimesBetween(LocalDateTime from, LocalDateTime to) {
+            return showtimes.between(from, to);
         }
 
     }
     @Getter
     static class Screen {
         int screenId;
-        private List<ShowTime> showtimes;
+        Cinema cinema;
+        private final ShowTimeIndex showtimes;
 
         public Screen(int screenId) {
             this.screenId = screenId;
-            this.showtimes = new ArrayList<>();
+            this.showtimes = new ShowTimeIndex();
 
         }
 
-        public void addShowTime(ShowTime showTime) {
+        public synchronized void addShowTime(ShowTime showTime) {
             showtimes.add(showTime);
+            if (cinema != null) {
+                cinema.showtimes.add(showTime);
+            }
+        }
+
+        // Ordered by time
+        public List<ShowTime> getShowtimes() {
+            return showtimes.all();
+        }
+
+        public List<ShowTime> getShowtimesBetween(LocalDateTime from, LocalDateTime to) {
+            return showtimes.between(from, to);
+        }
+    }
+
+    // Showtimes ordered by start time; safe for concurrent adds and range reads
+    static class ShowTimeIndex {
+        private final ConcurrentSkipListMap<LocalDateTime, Queue<ShowTime>> byTime = new ConcurrentSkipListMap<>();
+
+        public void add(ShowTime showTime) {
+            byTime.computeIfAbsent(showTime.getTime(), time -> new ConcurrentLinkedQueue<>()).add(showTime);
+        }
+
+        public List<ShowTime> between(LocalDateTime from, LocalDateTime to) {
+            return flatten(byTime.subMap(from, true, to, false).values());
+        }
+
+        public List<ShowTime> all() {
+            return flatten(byTime.values());
+        }
+
+        private static List<ShowTime> flatten(Collection<Queue<ShowTime>> slots) {
+            List<ShowTime> result = new ArrayList<>();
+            for (Queue<ShowTime> slot : slots) {
+                result.addAll(slot);
+            }
+            return result;
+        }
+    }
+
+    // Open-addressing map with primitive int keys
+    static class IntMap<V> {
+        private int[] keys = new int[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        public V get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return (V) values[slot];
+                }
+            }
+            return null;
+        }
+
+        public void put(int key, V value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == null) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        public IntMap<V> copy() {
+            IntMap<V> copy = new IntMap<>();
+            copy.keys = keys.clone();
+            copy.values = values.clone();
+            copy.size = size;
+            return copy;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[capacity];
+            values = new Object[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], (V) oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
         }
     }
     static class ShowTime {
+        private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+        final long id;
         LocalDateTime time;
         Screen screen;
         Movie movie;
-        private List<Seat> availableSeats;
+        private final SeatInventory inventory;
+        private volatile Seat[] seatView;
+        private volatile AvailabilitySnapshot availability;
 
         public ShowTime(LocalDateTime time, Movie movie, Screen screen, List<Seat> availableSeats) {
+            this(NEXT_ID.getAndIncrement(), time, movie, screen, availableSeats);
+        }
+
+        // Use a stable id when bookings are journaled and restored across restarts
+        public ShowTime(long id, LocalDateTime time, Movie movie, Screen screen, List<Seat> availableSeats) {
+            this.id = id;
             this.time = time;
             this.movie = movie;
             this.screen = screen;
-            this.availableSeats = availableSeats;
+            this.inventory = new SeatInventory(availableSeats);
         }
 
         public boolean isSeatAvailable(int seatNumber) {
-            return availableSeats.stream()
-                    .filter(seat -> seat.getSeatNumber() == seatNumber && !seat.isBooked())
-                    .findFirst()
-                    .isPresent();
+            return inventory.isAvailable(seatNumber);
+        }
+
+        // Atomic claim: returns true only for the single caller that wins the seat
+        public boolean bookSeat(int seatNumber) {
+            return inventory.book(seatNumber);
+        }
+
+        // All-or-nothing claim of several seats
+        public boolean bookSeats(int[] seatNumbers) {
+            return inventory.bookAll(seatNumbers);
+        }
+
+        public int[] findAdjacentSeats(SeatType seatType, int count) {
+            return inventory.findAdjacent(seatType, count);
+        }
+
+        public boolean holdSeat(int seatNumber) {
+            return inventory.hold(seatNumber);
         }
 
-        public void bookSeat(int seatNumber) {
-            availableSeats.stream()
-                    .filter(seat -> seat.getSeatNumber() == seatNumber && !seat.isBooked())
-                    .forEach(Seat::book);
+        public boolean isSeatHeld(int seatNumber) {
+            return inventory.isHeld(seatNumber);
+        }
+
+        /**
+         * Cached seat map, rebuilt only when a booking or hold has bumped the inventory
+         * version. Lock-free: concurrent readers may both rebuild, writers never wait.
+         */
+        public AvailabilitySnapshot getAvailability(SnapshotMetrics metrics) {
+            AvailabilitySnapshot snapshot = availability;
+            if (snapshot != null && snapshot.getVersion() == inventory.version()) {
+                metrics.hits.increment();
+                return snapshot;
+            }
+            long start = System.nanoTime();
+            snapshot = inventory.snapshot();
+            metrics.rebuilds.increment();
+            metrics.rebuildNanos.add(System.nanoTime() - start);
+            AvailabilitySnapshot current = availability;
+            if (current == null || current.getVersion() < snapshot.getVersion()) {
+                availability = snapshot;
+            }
+            return snapshot;
+        }
+
+        // Seat objects are only materialized for callers that still need them
+        public List<Seat> getSeats() {
+            Seat[] view = seatView;
+            if (view == null) {
+                view = new Seat[inventory.capacity()];
+                for (int seatNumber = 0; seatNumber < view.length; seatNumber++) {
+                    if (inventory.exists(seatNumber)) {
+                        view[seatNumber] = new Seat(seatNumber, inventory.seatType(seatNumber));
+                    }
+                }
+                seatView = view;
+            }
+            List<Seat> seats = new ArrayList<>();
+            for (Seat seat : view) {
+                if (seat != null) {
+                    seat.isBooked = inventory.isBooked(seat.getSeatNumber());
+                    seat.isHeld = inventory.isHeld(seat.getSeatNumber());
+                    seats.add(seat);
+                }
+            }
+            return seats;
+        }
+
+        public SeatInventory getInventory() {
+            return inventory;
+        }
+
+        public long getId() {
+            return id;
         }
 
         public Movie getMovie() {
@@ -114,16 +364,264 @@ public  class MovieTicketSystem {
             return time;
         }
     }
+
+    /**
+     * Seat state for a single showtime, indexed by seat number.
+     * One bit per seat in booked, seat type ordinal in a parallel byte array.
+     * Bookings CAS the 64-seat word, so two users can never win the same seat
+     * and showtimes never contend with each other.
+     * A held seat is claimed in booked and also flagged in held until it is
+     * confirmed or expires.
+     */
+    static class SeatInventory {
+        private static final byte NO_SEAT = -1;
+        private static final SeatType[] SEAT_TYPES = SeatType.values();
+
+        private final AtomicLongArray booked;
+        private final AtomicLongArray held;
+        private final AtomicLong version = new AtomicLong();
+        private final byte[] seatTypes;
+        private final long[][] typeMasks;
+
+        public SeatInventory(List<Seat> seats) {
+            int capacity = 0;
+            for (Seat seat : seats) {
+                capacity = Math.max(capacity, seat.getSeatNumber() + 1);
+            }
+            long[] words = new long[(capacity + 63) >>> 6];
+            this.seatTypes = new byte[capacity];
+            this.typeMasks = new long[SEAT_TYPES.length][words.length];
+            Arrays.fill(seatTypes, NO_SEAT);
+            for (Seat seat : seats) {
+                int seatNumber = seat.getSeatNumber();
+                seatTypes[seatNumber] = (byte) seat.getSeatType().ordinal();
+                typeMasks[seatTypes[seatNumber]][seatNumber >>> 6] |= 1L << seatNumber;
+                if (seat.isBooked()) {
+                    words[seatNumber >>> 6] |= 1L << seatNumber;
+                }
+            }
+            this.booked = new AtomicLongArray(words);
+            this.held = new AtomicLongArray(words.length);
+        }
+
+        public boolean exists(int seatNumber) {
+            return seatNumber >= 0 && seatNumber < seatTypes.length && seatTypes[seatNumber] != NO_SEAT;
+        }
+
+        public boolean isAvailable(int seatNumber) {
+            return exists(seatNumber) && (booked.get(seatNumber >>> 6) & (1L << seatNumber)) == 0;
+        }
+
+        public boolean isBooked(int seatNumber) {
+            return exists(seatNumber) && !isAvailable(seatNumber) && !isHeld(seatNumber);
+        }
+
+        public boolean isHeld(int seatNumber) {
+            return exists(seatNumber) && (held.get(seatNumber >>> 6) & (1L << seatNumber)) != 0;
+        }
+
+        public boolean book(int seatNumber) {
+            if (!exists(seatNumber) || !claim(booked, seatNumber >>> 6, 1L << seatNumber)) {
+                return false;
+            }
+            version.incrementAndGet();
+            return true;
+        }
+
+        public boolean hold(int seatNumber) {
+            if (!book(seatNumber)) {
+                return false;
+            }
+            setBits(held, seatNumber >>> 6, 1L << seatNumber);
+            version.incrementAndGet();
+            return true;
+        }
+
+        // Held -> booked; the seat stays claimed
+        public void confirmHold(int seatNumber) {
+            clearBits(held, seatNumber >>> 6, 1L << seatNumber);
+            version.incrementAndGet();
+        }
+
+        // Held -> available
+        public void releaseHold(int seatNumber) {
+            clearBits(held, seatNumber >>> 6, 1L << seatNumber);
+            clearBits(booked, seatNumber >>> 6, 1L << seatNumber);
+            version.incrementAndGet();
+        }
+
+        // Bumped after every state change, so a snapshot tagged with an older version is stale
+        public long version() {
+            return version.get();
+        }
+
+        // One byte per seat number, see AvailabilitySnapshot for the layout
+        public AvailabilitySnapshot snapshot() {
+            long snapshotVersion = version.get();
+            byte[] seats = new byte[seatTypes.length];
+            for (int seatNumber = 0; seatNumber < seats.length; seatNumber++) {
+                if (seatTypes[seatNumber] == NO_SEAT) {
+                    continue;
+                }
+                byte state = AvailabilitySnapshot.AVAILABLE;
+                if (isHeld(seatNumber)) {
+                    state = AvailabilitySnapshot.HELD;
+                } else if (!isAvailable(seatNumber)) {
+                    state = AvailabilitySnapshot.BOOKED;
+                }
+                seats[seatNumber] = (byte) (state | seatTypes[seatNumber] << 2);
+            }
+            return new AvailabilitySnapshot(snapshotVersion, seats);
+        }
+
+        /**
+         * Claims every seat or none. Seats are grouped by bitmap word and each word is
+         * claimed with a single CAS in ascending order; on conflict the words already
+         * claimed are released again.
+         */
+        public boolean bookAll(int[] seatNumbers) {
+            int[] sorted = seatNumbers.clone();
+            Arrays.sort(sorted);
+            int[] indexes = new int[sorted.length];
+            long[] masks = new long[sorted.length];
+            int words = 0;
+            for (int seatNumber : sorted) {
+                if (!exists(seatNumber)) {
+                    return false;
+                }
+                int index = seatNumber >>> 6;
+                if (words == 0 || indexes[words - 1] != index) {
+                    indexes[words++] = index;
+                }
+                masks[words - 1] |= 1L << seatNumber;
+            }
+            for (int i = 0; i < words; i++) {
+                if (!claim(booked, indexes[i], masks[i])) {
+                    for (int j = 0; j < i; j++) {
+                        clearBits(booked, indexes[j], masks[j]);
+                    }
+                    if (i > 0) {
+                        version.incrementAndGet();
+                    }
+                    return false;
+                }
+            }
+            version.incrementAndGet();
+            return true;
+        }
+
+        private static boolean claim(AtomicLongArray bits, int index, long mask) {
+            while (true) {
+                long word = bits.get(index);
+                if ((word & mask) != 0) {
+                    return false;
+                }
+                if (bits.compareAndSet(index, word, word | mask)) {
+                    return true;
+                }
+            }
+        }
+
+        private static void setBits(AtomicLongArray bits, int index, long mask) {
+            while (true) {
+                long word = bits.get(index);
+                if (bits.compareAndSet(index, word, word | mask)) {
+                    return;
+                }
+            }
+        }
+
+        private static void clearBits(AtomicLongArray bits, int index, long mask) {
+            while (true) {
+                long word = bits.get(index);
+                if (bits.compareAndSet(index, word, word & ~mask)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Finds count consecutive free seats of the given type, preferring the run
+         * closest to the middle of the screen. Returns null if no such run exists
+         * or count is not positive.
+         */
+        public int[] findAdjacent(SeatType seatType, int count) {
+            if (count <= 0) {
+                return null;
+            }
+            long[] mask = typeMasks[seatType.ordinal()];
+            int capacity = capacity();
+            int center = capacity / 2;
+            int bestStart = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            int runStart = -1;
+            for (int index = 0; index < mask.length; index++) {
+                long free = mask[index] & ~booked.get(index);
+                if (free == 0 && runStart < 0) {
+                    continue;
+                }
+                for (int bit = 0; bit < 64; bit++) {
+                    int seatNumber = (index << 6) + bit;
+                    boolean isFree = seatNumber < capacity && (free & (1L << bit)) != 0;
+                    if (isFree) {
+                        if (runStart < 0) {
+                            runStart = seatNumber;
+                        }
+                    } else if (runStart >= 0) {
+                        int start = placeInRun(runStart, seatNumber, count, center);
+                        if (start >= 0 && Math.abs(start + count / 2 - center) < bestDistance) {
+                            bestDistance = Math.abs(start + count / 2 - center);
+                            bestStart = start;
+                        }
+                        runStart = -1;
+                    }
+                }
+            }
+            // A run reaching the end of the last word is still open
+            if (runStart >= 0) {
+                int start = placeInRun(runStart, mask.length << 6, count, center);
+                if (start >= 0 && Math.abs(start + count / 2 - center) < bestDistance) {
+                    bestStart = start;
+                }
+            }
+            if (bestStart < 0) {
+                return null;
+            }
+            int[] seats = new int[count];
+            for (int i = 0; i < count; i++) {
+                seats[i] = bestStart + i;
+            }
+            return seats;
+        }
+
+        // Start of the count seats in the free run [runStart, runEnd) nearest center, or -1 if the run is too short
+        private static int placeInRun(int runStart, int runEnd, int count, int center) {
+            if (runEnd - runStart < count) {
+                return -1;
+            }
+            return Math.max(runStart, Math.min(center - count / 2, runEnd - count));
+        }
+
+        public SeatType seatType(int seatNumber) {
+            return exists(seatNumber) ? SEAT_TYPES[seatTypes[seatNumber]] : null;
+        }
+
+        public int capacity() {
+            return seatTypes.length;
+        }
+    }
    @Getter
     static class Seat {
         int seatNumber;
         SeatType seatType;
         Boolean isBooked;
+        Boolean isHeld;
 
         public Seat(int seatNumber, SeatType seatType) {
             this.seatNumber = seatNumber;
             this.seatType = seatType;
             this.isBooked = false;
+            this.isHeld = false;
         }
 
         public void book() {
@@ -132,6 +630,9 @@ public  class MovieTicketSystem {
         public boolean isBooked() {
             return isBooked;
         }
+        public boolean isHeld() {
+            return isHeld;
+        }
     }
     enum SeatType {
         REGULAR, VIP, HANDICAPPED;
@@ -147,27 +648,24 @@ public  class MovieTicketSystem {
         public User(String name, String emailId) {
             this.name = name;
             this.emailId = emailId;
+            this.bookingHistory = new ArrayList<>();
         }
 
         public List<Booking> getBookingHistory() {
             return bookingHistory;
         }
 
-        public void addBooking(Booking booking) {
+        public synchronized void addBooking(Booking booking) {
             this.bookingHistory.add(booking);
 
         }
 
         public Booking bookTicket(ShowTime showtime, int seatNumber) {
-            if (showtime.isSeatAvailable(seatNumber)) {
-                showtime.bookSeat(seatNumber);
-                Booking booking = new Booking(this, showtime, seatNumber);
-                addBooking(booking);
-                return booking;
-            } else {
-                System.out.println("Seat not available.");
-                return null;
-            }
+            return BookingManager.INSTANCE.bookTicket(showtime, this, seatNumber);
+        }
+
+        public List<Booking> bookSeats(ShowTime showtime, int[] seatNumbers) {
+            return BookingManager.INSTANCE.bookSeats(showtime, this, seatNumbers);
         }
     }
 
@@ -215,6 +713,8 @@ public  class MovieTicketSystem {
         public void processPayment() {
             // Logic to process payment
             this.status = PaymentStatus.COMPLETED;
+            long sequence = BookingManager.INSTANCE.journal(BookingJournal.EventType.PAYMENT, booking.getShowTime(), booking.getSeat(), amount);
+            BookingManager.INSTANCE.whenDurable(sequence).join();
             System.out.println("Payment of $" + amount + " completed for booking.");
         }
 
@@ -226,24 +726,398 @@ public  class MovieTicketSystem {
         }
     }
     
+    /**
+     * Immutable seat map for one showtime, one byte per seat number.
+     * Low two bits are the state (0 = no seat), the remaining bits the SeatType ordinal.
+     */
+    static class AvailabilitySnapshot {
+        static final byte NO_SEAT = 0;
+        static final byte AVAILABLE = 1;
+        static final byte HELD = 2;
+        static final byte BOOKED = 3;
+        private static final SeatType[] SEAT_TYPES = SeatType.values();
+
+        private final long version;
+        private final byte[] seats;
+
+        AvailabilitySnapshot(long version, byte[] seats) {
+            this.version = version;
+            this.seats = seats;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int capacity() {
+            return seats.length;
+        }
+
+        public byte state(int seatNumber) {
+            return (byte) (seats[seatNumber] & 0b11);
+        }
+
+        public SeatType seatType(int seatNumber) {
+            return state(seatNumber) == NO_SEAT ? null : SEAT_TYPES[seats[seatNumber] >>> 2];
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(seats);
+        }
+    }
+
+    static class SnapshotMetrics {
+        final LongAdder hits = new LongAdder();
+        final LongAdder rebuilds = new LongAdder();
+        final LongAdder rebuildNanos = new LongAdder();
+
+        public double hitRate() {
+            long hitCount = hits.sum();
+            long total = hitCount + rebuilds.sum();
+            return total == 0 ? 0.0 : (double) hitCount / total;
+        }
+
+        public long getRebuilds() {
+            return rebuilds.sum();
+        }
+
+        public double averageRebuildNanos() {
+            long rebuildCount = rebuilds.sum();
+            return rebuildCount == 0 ? 0.0 : (double) rebuildNanos.sum() / rebuildCount;
+        }
+    }
+
+    enum HoldStatus {
+        HELD, CONFIRMED, EXPIRED;
+    }
+
+    // A seat held for a user while checkout/payment is in progress
+    static class SeatHold {
+        final ShowTime showTime;
+        final User user;
+        final int seatNumber;
+        final long deadlineNanos;
+        private final AtomicReference<HoldStatus> status = new AtomicReference<>(HoldStatus.HELD);
+        SeatHold next; // owned by the TimingWheel slot list
+
+        public SeatHold(ShowTime showTime, User user, int seatNumber, long deadlineNanos) {
+            this.showTime = showTime;
+            this.user = user;
+            this.seatNumber = seatNumber;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public boolean confirm() {
+            if (!status.compareAndSet(HoldStatus.HELD, HoldStatus.CONFIRMED)) {
+                return false;
+            }
+            showTime.getInventory().confirmHold(seatNumber);
+            return true;
+        }
+
+        public boolean expire() {
+            if (!status.compareAndSet(HoldStatus.HELD, HoldStatus.EXPIRED)) {
+                return false;
+            }
+            showTime.getInventory().releaseHold(seatNumber);
+            BookingManager.INSTANCE.journal(BookingJournal.EventType.RELEASE, showTime, seatNumber, 0.0);
+            return true;
+        }
+
+        public HoldStatus getStatus() {
+            return status.get();
+        }
+
+        public ShowTime getShowTime() {
+            return showTime;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public int getSeatNumber() {
+            return seatNumber;
+        }
+    }
+
+    /**
+     * Hierarchical hashed timing wheel for hold expiry. Scheduling is an O(1) enqueue
+     * from any thread; a single ticker thread owns the wheels, drains new holds into
+     * slots and cascades far-out holds down a level as time reaches them.
+     * Confirmed holds are skipped lazily when their slot comes up.
+     */
+    static class TimingWheel {
+        private static final int LEVELS = 4;
+        private static final int WHEEL_BITS = 8;
+        private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+        private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+        private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+        private final long tickNanos;
+        private final long startNanos;
+        private final SeatHold[][] slots = new SeatHold[LEVELS][WHEEL_SIZE];
+        private final ConcurrentLinkedQueue<SeatHold> pending = new ConcurrentLinkedQueue<>();
+        private long currentTick;
+
+        public TimingWheel(Duration tick) {
+            this.tickNanos = tick.toNanos();
+            this.startNanos = System.nanoTime();
+        }
+
+        public void schedule(SeatHold hold) {
+            pending.add(hold);
+        }
+
+        // Must only be called from the ticker thread
+        public void advance(long nowNanos) {
+            long targetTick = (nowNanos - startNanos) / tickNanos;
+            SeatHold hold;
+            while ((hold = pending.poll()) != null) {
+                place(hold);
+            }
+            while (currentTick < targetTick) {
+                currentTick++;
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                        cascade(level, (int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                    }
+                }
+                int slot = (int) currentTick & WHEEL_MASK;
+                SeatHold due = slots[0][slot];
+                slots[0][slot] = null;
+                while (due != null) {
+                    SeatHold next = due.next;
+                    due.next = null;
+                    expire(due);
+                    due = next;
+                }
+            }
+        }
+
+        // The seat is released before the journal write, so a failure must not stop the rest of the slot
+        private static void expire(SeatHold hold) {
+            try {
+                hold.expire();
+            } catch (RuntimeException e) {
+                System.out.println("Could not expire hold on seat " + hold.getSeatNumber() + ": " + e);
+            }
+        }
+
+        private void cascade(int level, int slot) {
+            SeatHold hold = slots[level][slot];
+            slots[level][slot] = null;
+            while (hold != null) {
+                SeatHold next = hold.next;
+                hold.next = null;
+                place(hold);
+                hold = next;
+            }
+        }
+
+        private void place(SeatHold hold) {
+            if (hold.getStatus() != HoldStatus.HELD) {
+                return;
+            }
+            long deadlineTick = (hold.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+            long delta = deadlineTick - currentTick;
+            if (delta <= 0) {
+                expire(hold);
+                return;
+            }
+            if (delta > MAX_DELTA) {
+                deadlineTick = currentTick + MAX_DELTA;
+                delta = MAX_DELTA;
+            }
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+                level++;
+            }
+            int slot = (int) (deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+            hold.next = slots[level][slot];
+            slots[level][slot] = hold;
+        }
+    }
+
     static class BookingManager {
 
+        public static final Duration HOLD_TTL = Duration.ofMinutes(10);
+        private static final Duration HOLD_TICK = Duration.ofMillis(100);
+
         public static BookingManager INSTANCE  = new BookingManager();
 
+        private final TimingWheel holdExpiry = new TimingWheel(HOLD_TICK);
+        private final SnapshotMetrics seatMapMetrics = new SnapshotMetrics();
+        private volatile BookingJournal journal;
+
         private BookingManager() {
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seat-hold-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // A tick that throws would cancel every later one and leave held seats stuck
+            ticker.scheduleAtFixedRate(() -> {
+                try {
+                    holdExpiry.advance(System.nanoTime());
+                } catch (RuntimeException e) {
+                    System.out.println("Seat hold expiry failed: " + e);
+                }
+            }, HOLD_TICK.toMillis(), HOLD_TICK.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // Started on first use so the shard threads only exist once booking is used
+        private static class Shards {
+            static final BookingShards INSTANCE = new BookingShards();
+        }
+
+        /**
+         * Bookings, holds and confirms run on the shard that owns the showtime, so each showtime's
+         * seats are mutated by a single thread; the sync methods wait on these. Futures fail with
+         * RejectedExecutionException when the shard's mailbox stays full.
+         */
+        public CompletableFuture<Booking> bookTicketAsync(ShowTime showtime, User user, int seatNumber) {
+            return Shards.INSTANCE.submit(showtime.getId(), () -> book(showtime, user, seatNumber)).thenCompose(booking -> booking);
+        }
+
+        public CompletableFuture<List<Booking>> bookSeatsAsync(ShowTime showtime, User user, int[] seatNumbers) {
+            return Shards.INSTANCE.submit(showtime.getId(), () -> bookAll(showtime, user, seatNumbers)).thenCompose(bookings -> bookings);
+        }
+
+        public CompletableFuture<SeatHold> holdSeatAsync(ShowTime showtime, User user, int seatNumber) {
+            return holdSeatAsync(showtime, user, seatNumber, HOLD_TTL);
+        }
+
+        public CompletableFuture<SeatHold> holdSeatAsync(ShowTime showtime, User user, int seatNumber, Duration ttl) {
+            return Shards.INSTANCE.submit(showtime.getId(), () -> hold(showtime, user, seatNumber, ttl));
+        }
+
+        public CompletableFuture<Booking> confirmHoldAsync(SeatHold hold) {
+            return Shards.INSTANCE.submit(hold.getShowTime().getId(), () -> confirm(hold)).thenCompose(booking -> booking);
+        }
+
+        // Every booking, hold and payment from here on is appended to the journal
+        public void setJournal(BookingJournal journal) {
+            this.journal = journal;
+        }
+
+        // Returns the record's sequence, or 0 when no journal is set
+        long journal(BookingJournal.EventType type, ShowTime showtime, int seatNumber, double amount) {
+            BookingJournal current = journal;
+            return current == null ? 0 : current.append(type, showtime.getId(), seatNumber, amount);
+        }
+
+        // Completes once the group commit covering sequence has been forced to disk
+        CompletableFuture<Void> whenDurable(long sequence) {
+            BookingJournal current = journal;
+            return current == null || sequence == 0 ? CompletableFuture.completedFuture(null) : current.whenDurable(sequence);
+        }
+
+        // Re-books every seat the journal recorded as booked; call before taking traffic
+        public void restore(BookingJournal.Replay replay, Collection<ShowTime> showtimes) {
+            for (ShowTime showtime : showtimes) {
+                BitSet booked = replay.booked(showtime.getId());
+                for (int seatNumber = booked.nextSetBit(0); seatNumber >= 0; seatNumber = booked.nextSetBit(seatNumber + 1)) {
+                    showtime.bookSeat(seatNumber);
+                }
+            }
+        }
+
+        public SeatHold holdSeat(ShowTime showtime, User user, int seatNumber) {
+            return holdSeat(showtime, user, seatNumber, HOLD_TTL);
+        }
+
+        // Holds the seat until confirmHold is called or ttl passes, whichever comes first
+        public SeatHold holdSeat(ShowTime showtime, User user, int seatNumber, Duration ttl) {
+            return holdSeatAsync(showtime, user, seatNumber, ttl).join();
+        }
+
+        // Shard thread only, like book, bookAll and confirm
+        private SeatHold hold(ShowTime showtime, User user, int seatNumber, Duration ttl) {
+            if (!showtime.holdSeat(seatNumber)) {
+                System.out.println("Seat not available.");
+                return null;
+            }
+            journal(BookingJournal.EventType.HOLD, showtime, seatNumber, 0.0);
+            SeatHold hold = new SeatHold(showtime, user, seatNumber, System.nanoTime() + ttl.toNanos());
+            holdExpiry.schedule(hold);
+            return hold;
+        }
+
+        // Seat map for rendering; served from the showtime's snapshot cache
+        public AvailabilitySnapshot getSeatMap(ShowTime showtime) {
+            return showtime.getAvailability(seatMapMetrics);
+        }
+
+        public SnapshotMetrics getSeatMapMetrics() {
+            return seatMapMetrics;
+        }
+
+        // Call once payment has completed; returns null if the hold already expired
+        public Booking confirmHold(SeatHold hold) {
+            return confirmHoldAsync(hold).join();
         }
 
         // Method for booking a ticket
         public Booking bookTicket(ShowTime showtime, User user, int seatNumber) {
-            if (showtime.isSeatAvailable(seatNumber)) {
-                showtime.bookSeat(seatNumber);
+            return bookTicketAsync(showtime, user, seatNumber).join();
+        }
+
+        // Group booking: either every seat is booked or none is
+        public List<Booking> bookSeats(ShowTime showtime, User user, int[] seatNumbers) {
+            return bookSeatsAsync(showtime, user, seatNumbers).join();
+        }
+
+        /*
+         * The seat is claimed and journaled right away, but the booking is only handed out once
+         * its group commit is on disk, so an acknowledged booking survives a crash. The sync
+         * methods wait for that; the async ones leave the shard thread free in the meantime.
+         */
+        private CompletableFuture<Booking> confirm(SeatHold hold) {
+            if (!hold.confirm()) {
+                System.out.println("Seat hold expired.");
+                return CompletableFuture.completedFuture(null);
+            }
+            long sequence = journal(BookingJournal.EventType.CONFIRM, hold.getShowTime(), hold.getSeatNumber(), 0.0);
+            return whenDurable(sequence).thenApply(durable -> {
+                Booking booking = new Booking(hold.getUser(), hold.getShowTime(), hold.getSeatNumber());
+                hold.getUser().addBooking(booking);
+                return booking;
+            });
+        }
+
+        private CompletableFuture<Booking> book(ShowTime showtime, User user, int seatNumber) {
+            if (!showtime.bookSeat(seatNumber)) {
+                System.out.println("Seat not available.");
+                return CompletableFuture.completedFuture(null);
+            }
+            long sequence = journal(BookingJournal.EventType.BOOK, showtime, seatNumber, 0.0);
+            return whenDurable(sequence).thenApply(durable -> {
                 Booking booking = new Booking(user, showtime, seatNumber);
                 user.addBooking(booking);
                 return booking;
-            } else {
-                System.out.println("Seat not available.");
-                return null;
+            });
+        }
+
+        private CompletableFuture<List<Booking>> bookAll(ShowTime showtime, User user, int[] seatNumbers) {
+            if (!showtime.bookSeats(seatNumbers)) {
+                System.out.println("Seats not available.");
+                return CompletableFuture.completedFuture(null);
+            }
+            long sequence = 0;
+            for (int seatNumber : seatNumbers) {
+                sequence = journal(BookingJournal.EventType.BOOK, showtime, seatNumber, 0.0);
             }
+            // The last record's commit covers the whole group
+            return whenDurable(sequence).thenApply(durable -> {
+                List<Booking> bookings = new ArrayList<>();
+                for (int seatNumber : seatNumbers) {
+                    Booking booking = new Booking(user, showtime, seatNumber);
+                    user.addBooking(booking);
+                    bookings.add(booking);
+                }
+                return bookings;
+            });
         }
     }
 
@@ -262,37 +1136,254 @@ public  class MovieTicketSystem {
 
     class Catalog implements Search {
         List<Movie> movies;
+        private final MovieIndex index;
 
         public Catalog() {
             this.movies = new ArrayList<>();
+            this.index = new MovieIndex();
         }
         // Add movies to the system
         public void addMovie(Movie movie) {
             movies.add(movie);
+            index.add(movie);
         }
+
+        // Adds a showtime after the movie is in the catalog so city search sees it
+        public void addShowtime(Movie movie, ShowTime showTime) {
+            movie.addShowtime(showTime);
+            index.addShowtime(movie, showTime);
+        }
+
         @Override
         public List<Movie> searchByTitle(String title) {
-            return List.of();
+            return index.toMovies(index.title(title));
         }
 
         @Override
         public List<Movie> searchByLanguage(String language) {
-            return List.of();
+            return index.toMovies(index.language(language));
         }
 
         @Override
         public List<Movie> searchByGenre(String genre) {
-            return List.of();
+            return index.toMovies(index.genre(genre));
         }
 
         @Override
         public List<Movie> searchByReleaseDate(Date relDate) {
-            return List.of();
+            return index.toMovies(index.releasedBetween(relDate, relDate));
         }
 
         @Override
         public List<Movie> searchByCity(String cityName) {
-            return List.of();
+            return index.toMovies(index.city(cityName));
+        }
+
+        public List<Movie> searchByReleaseDate(Date from, Date to) {
+            return index.toMovies(index.releasedBetween(from, to));
+        }
+
+        // Null criteria are ignored; the rest are intersected smallest posting list first
+        public List<Movie> search(String title, String genre, String language, String cityName) {
+            List<int[]> postings = new ArrayList<>();
+            if (title != null) {
+                postings.add(index.title(title));
+            }
+            if (genre != null) {
+                postings.add(index.genre(genre));
+            }
+            if (language != null) {
+                postings.add(index.language(language));
+            }
+            if (cityName != null) {
+                postings.add(index.city(cityName));
+            }
+            if (postings.isEmpty()) {
+                return new ArrayList<>(movies);
+            }
+            postings.sort((a, b) -> a.length - b.length);
+            int[] result = postings.get(0);
+            for (int i = 1; i < postings.size() && result.length > 0; i++) {
+                result = MovieIndex.intersect(result, postings.get(i));
+            }
+            return index.toMovies(result);
+        }
+    }
+
+    /**
+     * In-memory inverted index over the catalog. Movies get dense ids in insertion
+     * order, so posting lists stay sorted and mostly just append.
+     * Title tokens live in a sorted dictionary for prefix lookup; genre, language and
+     * city are hash indexes and release dates a navigable map by day.
+     */
+    static class MovieIndex {
+        private final List<Movie> movies = new ArrayList<>();
+        private final Map<Movie, Integer> ids = new IdentityHashMap<>();
+        private final NavigableMap<String, PostingList> titleTokens = new TreeMap<>();
+        private final Map<String, PostingList> genres = new HashMap<>();
+        private final Map<String, PostingList> languages = new HashMap<>();
+        private final Map<String, PostingList> cities = new HashMap<>();
+        private final NavigableMap<LocalDate, PostingList> releaseDates = new TreeMap<>();
+
+        public void add(Movie movie) {
+            int id = movies.size();
+            movies.add(movie);
+            ids.put(movie, id);
+            if (movie.getTitle() != null) {
+                for (String token : tokenize(movie.getTitle())) {
+                    titleTokens.computeIfAbsent(token, k -> new PostingList()).add(id);
+                }
+            }
+            addKey(genres, movie.getGenre(), id);
+            addKey(languages, movie.getLanguage(), id);
+            if (movie.getReleaseDate() != null) {
+                releaseDates.computeIfAbsent(toLocalDate(movie.getReleaseDate()), k -> new PostingList()).add(id);
+            }
+            for (ShowTime showTime : movie.getShowtimes()) {
+                addShowtime(movie, showTime);
+            }
+        }
+
+        public void addShowtime(Movie movie, ShowTime showTime) {
+            Integer id = ids.get(movie);
+            Screen screen = showTime.getScreen();
+            if (id != null && screen != null && screen.getCinema() != null) {
+                addKey(cities, screen.getCinema().getCity(), id);
+            }
+        }
+
+        // Every query token matches as a prefix of some title token
+        public int[] title(String query) {
+            List<String> tokens = tokenize(query);
+            if (tokens.isEmpty()) {
+                return new int[0];
+            }
+            int[] result = null;
+            for (String token : tokens) {
+                int[] matches = union(titleTokens.subMap(token, true, token + Character.MAX_VALUE, false).values());
+                result = result == null ? matches : intersect(result, matches);
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        public int[] genre(String genre) {
+            return lookup(genres, genre);
+        }
+
+        public int[] language(String language) {
+            return lookup(languages, language);
+        }
+
+        public int[] city(String city) {
+            return lookup(cities, city);
+        }
+
+        public int[] releasedBetween(Date from, Date to) {
+            return union(releaseDates.subMap(toLocalDate(from), true, toLocalDate(to), true).values());
+        }
+
+        public List<Movie> toMovies(int[] postings) {
+            List<Movie> result = new ArrayList<>(postings.length);
+            for (int id : postings) {
+                result.add(movies.get(id));
+            }
+            return result;
+        }
+
+        static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+
+        private static int[] union(Collection<PostingList> lists) {
+            if (lists.size() == 1) {
+                return lists.iterator().next().toArray();
+            }
+            int total = 0;
+            for (PostingList list : lists) {
+                total += list.size;
+            }
+            int[] all = new int[total];
+            int n = 0;
+            for (PostingList list : lists) {
+                System.arraycopy(list.ids, 0, all, n, list.size);
+                n += list.size;
+            }
+            Arrays.sort(all);
+            int unique = 0;
+            for (int i = 0; i < all.length; i++) {
+                if (i == 0 || all[i] != all[i - 1]) {
+                    all[unique++] = all[i];
+                }
+            }
+            return Arrays.copyOf(all, unique);
+        }
+
+        private static void addKey(Map<String, PostingList> index, String key, int id) {
+            if (key != null) {
+                index.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new PostingList()).add(id);
+            }
+        }
+
+        private static int[] lookup(Map<String, PostingList> index, String key) {
+            PostingList postings = key == null ? null : index.get(key.toLowerCase(Locale.ROOT));
+            return postings == null ? new int[0] : postings.toArray();
+        }
+
+        private static List<String> tokenize(String text) {
+            List<String> tokens = new ArrayList<>();
+            for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+            return tokens;
+        }
+
+        private static LocalDate toLocalDate(Date date) {
+            return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+    }
+
+    // Sorted list of movie ids; new movies append, late showtimes may insert
+    static class PostingList {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int position = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                position = -position - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
         }
     }
 }
@@ -0,0 +1,425 @@
+package com.example.ooad.jobscheduling;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Park/exit event stream of one lot with occupancy rollups for capacity planning.
+ * Gates publish one long per event into a preallocated ring (claim a sequence by CAS, write the
+ * slot, then mark it published). A gate finding the ring full spins for at most maxWaitNanos
+ * and then drops the event, counting it, rather than holding up the barrier; dropped events
+ * skew the rollups, so size the ring for the burst rate. A single aggregator thread drains the
+ * ring and keeps per-minute and per-hour rollups per level and ParkingSpotType, appending each
+ * closed period to a columnar file. A rollup block that fails to write is counted and skipped;
+ * the aggregator keeps consuming.
+ *
+ * Event layout (64 bits): epoch seconds (42) | signed level (16) | spot type (5) | exit flag (1)
+ */
+public class ParkingEventStream implements Closeable {
+
+    public static final String MINUTES_FILE = "occupancy-minutes.col";
+    public static final String HOURS_FILE = "occupancy-hours.col";
+    private static final long IDLE_PARK_NANOS = 1_000_000L;
+
+    private final long[] events;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final long maxWaitNanos;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private volatile long consumed;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+
+    private final Aggregator aggregator;
+    private final Thread consumer;
+
+    public ParkingEventStream(Path directory, int capacity, long maxWaitNanos) throws IOException {
+        this.maxWaitNanos = maxWaitNanos;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.events = new long[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        Files.createDirectories(directory);
+        this.aggregator = new Aggregator(new RollupFile(directory.resolve(MINUTES_FILE)), new RollupFile(directory.resolve(HOURS_FILE)), failedWrites);
+        this.consumer = new Thread(this::drain, "parking-event-aggregator");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public ParkingEventStream(Path directory) throws IOException {
+        this(directory, 1 << 16, 1_000_000L);
+    }
+
+    // Returns false if the ring was full and the event was dropped. Levels must fit in a short (basements are negative)
+    public boolean publish(int level, int spotType, boolean exit) {
+        if (level != (short) level) {
+            dropped.increment();
+            return false;
+        }
+        long event = (System.currentTimeMillis() / 1000) << 22 | (long) (level & 0xffff) << 6 | spotType << 1 | (exit ? 1 : 0);
+        long deadline = 0;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed >= events.length) {
+                if (deadline == 0) {
+                    deadline = System.nanoTime() + maxWaitNanos;
+                } else if (System.nanoTime() - deadline > 0) {
+                    dropped.increment();
+                    return false;
+                }
+                // Yield rather than spin: the aggregator may need this core to drain
+                Thread.yield();
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence + 1)) {
+                int slot = (int) sequence & mask;
+                events[slot] = event;
+                published.set(slot, sequence);
+                if (parked) {
+                    parked = false;
+                    LockSupport.unpark(consumer);
+                }
+                return true;
+            }
+        }
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // Rollup blocks lost to write errors
+    public long getFailedWrites() {
+        return failedWrites.sum();
+    }
+
+    // Closes the open minute and hour, writing them out
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        aggregator.close();
+    }
+
+    private void drain() {
+        long next = 0;
+        while (true) {
+            int slot = (int) next & mask;
+            if (published.get(slot) == next) {
+                long event = events[slot];
+                consumed = ++next;
+                aggregator.apply(event >>> 22, (short) (event >>> 6), (int) (event >>> 1) & 0x1f, (event & 1) != 0);
+                continue;
+            }
+            if (!running && claimed.get() == next) {
+                return;
+            }
+            aggregator.advanceTo(System.currentTimeMillis() / 1000);
+            if (claimed.get() == next) {
+                parked = true;
+                // Re-check after publishing parked so a concurrent publish cannot be missed
+                if (claimed.get() == next) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                parked = false;
+            } else {
+                Thread.onSpinWait(); // slot claimed but not yet written
+            }
+        }
+    }
+
+    /**
+     * Incremental rollups, touched only by the aggregator thread. Occupancy counts from the
+     * moment the stream was attached. Events a few seconds late after a period closed are
+     * counted in the open period. A period with no row for a level and type means its
+     * occupancy did not change.
+     */
+    static class Aggregator {
+        // Indexed by dense level index << 5 | spot type; live is the same counters in first-seen order
+        private Counters[] counters = new Counters[64];
+        private final List<Counters> live = new ArrayList<>();
+        // Level number -> dense index, so sparse or negative level numbers keep counters small
+        private final Map<Integer, Integer> levelIndexes = new HashMap<>();
+        private final RollupFile minutes;
+        private final RollupFile hours;
+        private final LongAdder failedWrites;
+        private long currentMinute = -1;
+
+        Aggregator(RollupFile minutes, RollupFile hours, LongAdder failedWrites) {
+            this.minutes = minutes;
+            this.hours = hours;
+            this.failedWrites = failedWrites;
+        }
+
+        void apply(long epochSeconds, int level, int spotType, boolean exit) {
+            advanceTo(epochSeconds);
+            Integer levelIndex = levelIndexes.get(level);
+            if (levelIndex == null) {
+                levelIndex = levelIndexes.size();
+                levelIndexes.put(level, levelIndex);
+            }
+            int key = levelIndex << 5 | spotType;
+            if (key >= counters.length) {
+                counters = Arrays.copyOf(counters, Math.max(key + 1, counters.length * 2));
+            }
+            Counters c = counters[key];
+            if (c == null) {
+                c = new Counters(level, spotType);
+                counters[key] = c;
+                live.add(c);
+            }
+            if (exit) {
+                c.occupancy--;
+                c.minuteExits++;
+                c.hourExits++;
+            } else {
+                c.occupancy++;
+                c.minuteParks++;
+                c.hourParks++;
+                c.minutePeak = Math.max(c.minutePeak, c.occupancy);
+                c.hourPeak = Math.max(c.hourPeak, c.occupancy);
+            }
+            c.minuteTouched = true;
+            c.hourTouched = true;
+        }
+
+        void advanceTo(long epochSeconds) {
+            long minute = epochSeconds / 60;
+            if (currentMinute < 0) {
+                currentMinute = minute;
+                return;
+            }
+            if (minute <= currentMinute) {
+                return;
+            }
+            closeMinute();
+            if (minute / 60 != currentMinute / 60) {
+                closeHour();
+            }
+            currentMinute = minute;
+        }
+
+        private void closeMinute() {
+            minutes.beginBlock(currentMinute * 60);
+            for (Counters c : live) {
+                if (c.minuteTouched) {
+                    minutes.addRow(c.level, c.spotType, c.minuteParks, c.minuteExits, c.occupancy, c.minutePeak);
+                }
+                c.minuteParks = 0;
+                c.minuteExits = 0;
+                c.minutePeak = c.occupancy;
+                c.minuteTouched = false;
+            }
+            endBlock(minutes, false);
+        }
+
+        private void closeHour() {
+            hours.beginBlock(currentMinute / 60 * 3600);
+            for (Counters c : live) {
+                if (c.hourTouched) {
+                    hours.addRow(c.level, c.spotType, c.hourParks, c.hourExits, c.occupancy, c.hourPeak);
+                }
+                c.hourParks = 0;
+                c.hourExits = 0;
+                c.hourPeak = c.occupancy;
+                c.hourTouched = false;
+            }
+            // Hour blocks are few, force them so a crash loses at most the open hour
+            endBlock(hours, true);
+        }
+
+        // A failed block loses that period's rows only; the counters have moved on and the thread keeps draining
+        private void endBlock(RollupFile file, boolean force) {
+            try {
+                file.endBlock(force);
+            } catch (UncheckedIOException e) {
+                failedWrites.increment();
+                System.out.println("Could not write occupancy rollup: " + e.getCause().getMessage());
+            }
+        }
+
+        void close() throws IOException {
+            if (currentMinute >= 0) {
+                closeMinute();
+                closeHour();
+            }
+            minutes.close();
+            hours.close();
+        }
+    }
+
+    static class Counters {
+        final int level;
+        final int spotType;
+        int occupancy;
+        int minuteParks;
+        int minuteExits;
+        int minutePeak;
+        boolean minuteTouched;
+        int hourParks;
+        int hourExits;
+        int hourPeak;
+        boolean hourTouched;
+
+        Counters(int level, int spotType) {
+            this.level = level;
+            this.spotType = spotType;
+        }
+    }
+
+    /**
+     * Append-only columnar rollup file: one block per closed period, each column stored
+     * contiguously so a report reads only the columns it needs.
+     *
+     * Block layout: magic (4) | period start, epoch seconds (8) | rows (4) |
+     * level int[rows] | spot type byte[rows] | parks int[rows] | exits int[rows] |
+     * occupancy at close int[rows] | peak occupancy int[rows]
+     */
+    public static class RollupFile implements Closeable {
+        static final int MAGIC = 0x4f435031;
+        private static final int HEADER = 16;
+        private static final int ROW_BYTES = 21;
+
+        private final FileChannel channel;
+        private ByteBuffer block = ByteBuffer.allocate(HEADER + 64 * ROW_BYTES);
+        private int[][] columns = new int[5][64];
+        private byte[] types = new byte[64];
+        private long periodStart;
+        private int rows;
+
+        RollupFile(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        void beginBlock(long periodStart) {
+            this.periodStart = periodStart;
+            this.rows = 0;
+        }
+
+        void addRow(int level, int spotType, int parks, int exits, int occupancy, int peak) {
+            if (rows == types.length) {
+                types = Arrays.copyOf(types, rows * 2);
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = Arrays.copyOf(columns[i], rows * 2);
+                }
+            }
+            types[rows] = (byte) spotType;
+            columns[0][rows] = level;
+            columns[1][rows] = parks;
+            columns[2][rows] = exits;
+            columns[3][rows] = occupancy;
+            columns[4][rows] = peak;
+            rows++;
+        }
+
+        void endBlock(boolean force) {
+            if (rows == 0) {
+                return;
+            }
+            int size = HEADER + rows * ROW_BYTES;
+            if (block.capacity() < size) {
+                block = ByteBuffer.allocate(size * 2);
+            }
+            block.clear();
+            block.putInt(MAGIC).putLong(periodStart).putInt(rows);
+            putColumn(columns[0]);
+            block.put(types, 0, rows);
+            for (int i = 1; i < columns.length; i++) {
+                putColumn(columns[i]);
+            }
+            block.flip();
+            long end = -1;
+            try {
+                end = channel.size();
+                while (block.hasRemaining()) {
+                    channel.write(block);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                // Cut off a partly written block so scan does not hit it as corruption
+                if (end >= 0) {
+                    try {
+                        channel.truncate(end);
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void putColumn(int[] column) {
+            for (int i = 0; i < rows; i++) {
+                block.putInt(column[i]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.force(false);
+            channel.close();
+        }
+
+        /**
+         * Visits every row of a rollup file in period order. Reads the file in one mapping
+         * and allocates nothing per row.
+         */
+        public static void scan(Path path, RollupVisitor visitor) throws IOException {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            while (buffer.remaining() >= HEADER) {
+                int base = buffer.position();
+                if (buffer.getInt(base) != MAGIC) {
+                    throw new IOException("Corrupt rollup block at offset " + base + " in " + path);
+                }
+                long periodStart = buffer.getLong(base + 4);
+                int rows = buffer.getInt(base + 12);
+                int levels = base + HEADER;
+                int spotTypes = levels + 4 * rows;
+                int parks = spotTypes + rows;
+                int exits = parks + 4 * rows;
+                int occupancy = exits + 4 * rows;
+                int peak = occupancy + 4 * rows;
+                for (int i = 0; i < rows; i++) {
+                    visitor.row(periodStart, buffer.getInt(levels + 4 * i), buffer.get(spotTypes + i),
+                            buffer.getInt(parks + 4 * i), buffer.getInt(exits + 4 * i),
+                            buffer.getInt(occupancy + 4 * i), buffer.getInt(peak + 4 * i));
+                }
+                buffer.position(base + HEADER + rows * ROW_BYTES);
+            }
+        }
+    }
+
+    public interface RollupVisitor {
+        void row(long periodStart, int level, int spotType, int parks, int exits, int occupancy, int peakOccupancy);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.ooad.jobscheduling;
+
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLevel;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingSpot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Ticket;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Vehicle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary files for bringing a lot up quickly: a layout file describing its levels and spots,
+ * written once when the garage is built, and an occupancy snapshot of parked vehicles and
+ * their tickets, written periodically or at shutdown. Both are memory-mapped on load.
+ *
+ * Layout: magic (4) | level count (4), then per level:
+ * level number (4) | grid cell size (4) | spot count (4) | spot type byte[n] | x int[n] | y int[n] |
+ * spot ids, each a length (2) and UTF-8 bytes
+ *
+ * Occupancy: magic (4) | record count (4), then per occupied spot:
+ * level index (4) | spot index (4) | ticket number, 0 if none (8) | issued at, wall-clock epoch
+ * seconds (8) | nanos (4) | vehicle type (1) | plate length (2) | plate UTF-8 bytes
+ */
+public class ParkingLotStore {
+
+    private static final int LAYOUT_MAGIC = 0x504c4159;
+    private static final int OCCUPANCY_MAGIC = 0x504f4343;
+    private static final ParkingSpotType[] SPOT_TYPES = ParkingSpotType.values();
+
+    public static void writeLayout(ParkingLot parkingLot, Path path) throws IOException {
+        List<ParkingLevel> levels = parkingLot.getParkingLevels();
+        List<byte[][]> ids = new ArrayList<>();
+        long size = 8;
+        for (ParkingLevel parkingLevel : levels) {
+            List<ParkingSpot> spots = parkingLevel.getSpots();
+            byte[][] levelIds = new byte[spots.size()][];
+            for (int i = 0; i < levelIds.length; i++) {
+                levelIds[i] = spots.get(i).getSpotId().getBytes(StandardCharsets.UTF_8);
+                size += 2 + levelIds[i].length;
+            }
+            ids.add(levelIds);
+            size += 12 + 9L * spots.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(LAYOUT_MAGIC).putInt(levels.size());
+        for (int l = 0; l < levels.size(); l++) {
+            ParkingLevel parkingLevel = levels.get(l);
+            List<ParkingSpot> spots = parkingLevel.getSpots();
+            buffer.putInt(parkingLevel.getLevel()).putInt(parkingLevel.getCellSize()).putInt(spots.size());
+            for (ParkingSpot spot : spots) {
+                buffer.put((byte) spot.getParkingSpotType().ordinal());
+            }
+            for (ParkingSpot spot : spots) {
+                buffer.putInt(spot.getX());
+            }
+            for (ParkingSpot spot : spots) {
+                buffer.putInt(spot.getY());
+            }
+            for (byte[] id : ids.get(l)) {
+                buffer.putShort((short) id.length).put(id);
+            }
+        }
+        buffer.flip();
+        writeAtomically(path, buffer);
+    }
+
+    // Adds the levels and spots described by the layout file to parkingLot
+    public static void loadLayout(Path path, ParkingLot parkingLot) throws IOException {
+        MappedByteBuffer buffer = map(path);
+        if (buffer.getInt() != LAYOUT_MAGIC) {
+            throw new IOException("Not a parking lot layout: " + path);
+        }
+        int levels = buffer.getInt();
+        for (int l = 0; l < levels; l++) {
+            ParkingLevel parkingLevel = new ParkingLevel(buffer.getInt(), buffer.getInt());
+            int count = buffer.getInt();
+            int types = buffer.position();
+            int xs = types + count;
+            int ys = xs + 4 * count;
+            buffer.position(ys + 4 * count);
+            List<ParkingSpot> spots = new ArrayList<>(count);
+            byte[] id = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort() & 0xffff;
+                if (length > id.length) {
+                    id = new byte[length];
+                }
+                buffer.get(id, 0, length);
+                spots.add(new ParkingSpot(new String(id, 0, length, StandardCharsets.UTF_8),
+                        SPOT_TYPES[buffer.get(types + i)], buffer.getInt(xs + 4 * i), buffer.getInt(ys + 4 * i)));
+            }
+            parkingLevel.addSpots(spots);
+            parkingLot.addParkingLevel(parkingLevel);
+        }
+    }
+
+    /**
+     * Writes the occupied spots of every level with the vehicle and active ticket in each.
+     * Each level's spots, vehicles and tickets are copied under its stripes, so a level is
+     * consistent in itself even with gates running, except for a car mid-park or mid-exit: its
+     * spot is taken but it has no active ticket, so it is written with ticket number 0. The file
+     * replaces the previous snapshot atomically.
+     */
+    public static void writeOccupancy(ParkingLot parkingLot, Path path) throws IOException {
+        List<ParkingLevel> levels = parkingLot.getParkingLevels();
+        List<OccupiedSpot> occupied = new ArrayList<>();
+        long size = 8;
+        for (int l = 0; l < levels.size(); l++) {
+            int levelIndex = l;
+            for (OccupiedSpot record : levels.get(l).occupiedSpots(spot -> new OccupiedSpot(parkingLot, levelIndex, spot))) {
+                occupied.add(record);
+                size += 31 + record.plate.length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(OCCUPANCY_MAGIC).putInt(occupied.size());
+        for (OccupiedSpot record : occupied) {
+            buffer.putInt(record.levelIndex).putInt(record.spotIndex);
+            buffer.putLong(record.ticketNumber);
+            buffer.putLong(record.issuedAt == null ? 0 : record.issuedAt.toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(record.issuedAt == null ? 0 : record.issuedAt.getNano());
+            buffer.put((byte) record.vehicleType.ordinal());
+            buffer.putShort((short) record.plate.length).put(record.plate);
+        }
+        buffer.flip();
+        writeAtomically(path, buffer);
+    }
+
+    // One occupied spot as copied under its level's stripes
+    private static class OccupiedSpot {
+        final int levelIndex;
+        final int spotIndex;
+        final long ticketNumber;
+        final LocalDateTime issuedAt;
+        final ParkingSpotType vehicleType;
+        final byte[] plate;
+
+        OccupiedSpot(ParkingLot parkingLot, int levelIndex, ParkingSpot spot) {
+            Vehicle vehicle = spot.getVehicle();
+            Ticket ticket = vehicle == null ? null : parkingLot.findTicketByPlate(vehicle.getLicensePlate());
+            boolean hasTicket = ticket != null && ticket.getParkingSpot() == spot;
+            this.levelIndex = levelIndex;
+            this.spotIndex = spot.getIndex();
+            this.ticketNumber = hasTicket ? ticket.getNumber() : 0;
+            this.issuedAt = hasTicket ? ticket.getIssuedAt() : null;
+            this.vehicleType = vehicle == null ? spot.getParkingSpotType() : vehicle.getParkingSpotType();
+            this.plate = vehicle == null ? new byte[0] : vehicle.getLicensePlate().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Re-parks the snapshot's vehicles on a lot with the same layout and re-registers their
+     * tickets, so they can exit as normal. Returns the number of spots restored. Records without
+     * a ticket were caught mid-park or mid-exit; restoring them would leave a car that can never
+     * exit, so their spots stay free.
+     */
+    public static int restoreOccupancy(Path path, ParkingLot parkingLot) throws IOException {
+        MappedByteBuffer buffer = map(path);
+        if (buffer.getInt() != OCCUPANCY_MAGIC) {
+            throw new IOException("Not a parking occupancy snapshot: " + path);
+        }
+        int records = buffer.getInt();
+        int restored = 0;
+        List<ParkingLevel> levels = parkingLot.getParkingLevels();
+        long lastNumber = 0;
+        byte[] plate = new byte[64];
+        for (int i = 0; i < records; i++) {
+            int levelIndex = buffer.getInt();
+            ParkingLevel parkingLevel = levels.get(levelIndex);
+            ParkingSpot spot = parkingLevel.getSpots().get(buffer.getInt());
+            long number = buffer.getLong();
+            long issuedSeconds = buffer.getLong();
+            int issuedNanos = buffer.getInt();
+            ParkingSpotType vehicleType = SPOT_TYPES[buffer.get()];
+            int length = buffer.getShort() & 0xffff;
+            if (length > plate.length) {
+                plate = new byte[length];
+            }
+            buffer.get(plate, 0, length);
+            if (number == 0) {
+                continue;
+            }
+            Vehicle vehicle = new RestoredVehicle(new String(plate, 0, length, StandardCharsets.UTF_8), vehicleType);
+            parkingLevel.restoreSpot(spot, vehicle);
+            LocalDateTime issuedAt = LocalDateTime.ofEpochSecond(issuedSeconds, issuedNanos, ZoneOffset.UTC);
+            parkingLot.getTickets().register(new Ticket(number, vehicle, spot, issuedAt), levelIndex);
+            lastNumber = Math.max(lastNumber, number);
+            restored++;
+        }
+        Ticket.reserveNumbersThrough(lastNumber);
+        return restored;
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void writeAtomically(Path path, ByteBuffer buffer) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The concrete vehicle class is not recorded; a restored car only needs its plate and size
+    static class RestoredVehicle extends Vehicle {
+        RestoredVehicle(String licensePlate, ParkingSpotType parkingSpotType) {
+            super(licensePlate, parkingSpotType);
+        }
+    }
+}
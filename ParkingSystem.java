@@ -5,8 +5,23 @@ package com.example.ooad.jobscheduling;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 public  class ParkingSystem {
     public enum ParkingSpotType {
@@ -36,6 +51,25 @@ public  class ParkingSystem {
             }
 
     }
+
+        private static final ParkingSpotType[][] COMPATIBLE_SPOTS = new ParkingSpotType[values().length][];
+
+        static {
+            for (ParkingSpotType vehicleSize : values()) {
+                List<ParkingSpotType> spotSizes = new ArrayList<>();
+                for (ParkingSpotType spotSize : values()) {
+                    if (vehicleSize.fitsIn(spotSize)) {
+                        spotSizes.add(spotSize);
+                    }
+                }
+                COMPATIBLE_SPOTS[vehicleSize.ordinal()] = spotSizes.toArray(new ParkingSpotType[0]);
+            }
+        }
+
+        // Spot types this vehicle size fits in, smallest first (SMALL -> MEDIUM -> LARGE)
+        public ParkingSpotType[] compatibleSpots() {
+            return COMPATIBLE_SPOTS[ordinal()];
+        }
     @Getter
     @Setter
     static class ParkingLot {
@@ -45,20 +79,52 @@ public  class ParkingSystem {
         List<ParkingLevel> parkingLevels;
         List<EntryPanel> entryPanels;
         List<ExitPanel> exitPanels;
+        String city;
+        private final OccupancyFeed occupancyFeed;
+        private final TicketRegistry tickets;
+        private final LotMetrics metrics = new LotMetrics();
+        // Optional; when set every park and exit is recorded for the occupancy rollups
+        private volatile ParkingEventStream eventStream;
+        // Default lot for single-lot deployments; multi-lot services use ParkingLotRegistry
         public static ParkingLot INSTANCE = new ParkingLot();
         private ParkingLot() {
             parkingLevels = new ArrayList<>();
             entryPanels = new ArrayList<>();
             exitPanels = new ArrayList<>();
+            occupancyFeed = new OccupancyFeed(this);
+            tickets = new TicketRegistry(1024);
+        }
+
+        public ParkingLot(String id, String name, String address, String city) {
+            this();
+            this.id = id;
+            this.name = name;
+            this.address = address;
+            this.city = city;
+        }
+
+        public long freeCount(ParkingSpotType spotType) {
+            long free = 0;
+            for (ParkingLevel parkingLevel : parkingLevels) {
+                free += parkingLevel.freeCount(spotType);
+            }
+            return free;
         }
 
         public void addParkingLevel(ParkingLevel parkingLevel) {
+            parkingLevel.parkingLot = this;
             parkingLevels.add(parkingLevel);
         }
 
         public ParkingSpot findSpot(Vehicle vehicle) {
-            for(ParkingLevel parkingLevel : parkingLevels) {
-                ParkingSpot spot = parkingLevel.findAvailableSlot(vehicle);
+            return findSpot(vehicle, 0, 0, 0);
+        }
+
+        // Nearest compatible free spot to (x, y) on the first level, starting at startLevel, that has one
+        public ParkingSpot findSpot(Vehicle vehicle, int startLevel, int x, int y) {
+            int levels = parkingLevels.size();
+            for (int i = 0; i < levels; i++) {
+                ParkingSpot spot = parkingLevels.get((startLevel + i) % levels).findAvailableSlot(vehicle, x, y);
                 if (spot != null) {
                     return spot;
                 }
@@ -67,18 +133,63 @@ public  class ParkingSystem {
         }
 
         public Ticket parkVehicle(Vehicle vehicle) {
-            ParkingSpot spot = findSpot(vehicle);
-            if (spot != null) {
-                spot.assignVehicle(vehicle);
-                return new Ticket(vehicle, spot);
+            return parkVehicle(vehicle, 0, 0, 0);
+        }
+
+        public Ticket parkVehicle(Vehicle vehicle, int startLevel) {
+            return parkVehicle(vehicle, startLevel, 0, 0);
+        }
+
+        // Safe from any number of gates: the spot is found and taken in one step under its level/type stripe
+        public Ticket parkVehicle(Vehicle vehicle, int startLevel, int x, int y) {
+            int levels = parkingLevels.size();
+            for (int i = 0; i < levels; i++) {
+                int levelIndex = (startLevel + i) % levels;
+                ParkingSpot spot = parkingLevels.get(levelIndex).claimSpot(vehicle, x, y);
+                if (spot != null) {
+                    Ticket ticket = new Ticket(vehicle, spot);
+                    tickets.register(ticket, levelIndex);
+                    metrics.entries.increment();
+                    return ticket;
+                }
             }
+            metrics.rejected.increment();
             return null; // Parking lot is full
         }
-        public double exitVehicle(Ticket ticket) {
+
+        // Active ticket by id or by plate, null if the car is not parked here
+        public Ticket findTicket(String ticketId) {
+            return tickets.findByTicketId(ticketId, this);
+        }
+
+        public Ticket findTicketByPlate(String licensePlate) {
+            return tickets.findByPlate(licensePlate, this);
+        }
+
+        // A free spot of exactly this type on any level, or null
+        public ParkingSpot findFreeSpot(ParkingSpotType spotType) {
+            ParkingSpotType[] only = {spotType};
+            for (ParkingLevel parkingLevel : parkingLevels) {
+                int index = parkingLevel.getFreeSpots().nearest(only, 0, 0);
+                if (index >= 0) {
+                    return parkingLevel.getSpots().get(index);
+                }
+            }
+            return null;
+        }
+
+        // Frees the spot and returns the fee, or null if the ticket is no longer active (already exited)
+        public Double exitVehicle(Ticket ticket) {
+            // A stale ticket must not evict whoever parked in the spot since
+            if (!tickets.release(ticket)) {
+                System.out.println("Ticket " + ticket.getTicketId() + " is not active");
+                return null;
+            }
             ParkingSpot spot = ticket.getParkingSpot();
             spot.removeVehicle();
-            double fee = new ParkingFeeCalculator().calculateFee(ticket);
-            System.out.println("Parking Fee: $" + fee);
+            double fee = ParkingFeeCalculator.INSTANCE.calculateFee(ticket);
+            metrics.exits.increment();
+            metrics.revenue.add(fee);
             return fee;
         }
     }
@@ -88,23 +199,505 @@ public  class ParkingSystem {
     static class ParkingLevel {
         Integer level;
         private List<ParkingSpot> spots;
+        private final FreeSpotIndex freeSpots;
+        ParkingLot parkingLot;
 
         public ParkingLevel(Integer level) {
+            this(level, FreeSpotIndex.DEFAULT_CELL_SIZE);
+        }
+
+        // cellSize is the side of one spatial grid cell, in the same units as the spot coordinates
+        public ParkingLevel(Integer level, int cellSize) {
             this.level = level;
             this.spots = new ArrayList<>();
+            this.freeSpots = new FreeSpotIndex(spots, cellSize);
         }
+
         public ParkingSpot findAvailableSlot(Vehicle vehicle) {
-            for(ParkingSpot spot : spots) {
-                if(spot.canFitVehicle(vehicle) && spot.getIsAvailable()) {
-                    return spot;
+            return findAvailableSlot(vehicle, 0, 0);
+        }
+
+        // Nearest free spot to (x, y) that the vehicle fits in
+        public ParkingSpot findAvailableSlot(Vehicle vehicle, int x, int y) {
+            int index = freeSpots.nearest(vehicle.getParkingSpotType().compatibleSpots(), x, y);
+            return index < 0 ? null : spots.get(index);
+        }
+
+        public long freeCount(ParkingSpotType spotType) {
+            return freeSpots.freeCount(spotType);
+        }
+
+        public ParkingSpot claimSpot(Vehicle vehicle) {
+            return claimSpot(vehicle, 0, 0);
+        }
+
+        /**
+         * Atomically takes the nearest free compatible spot to (x, y), or returns null.
+         * The search runs without locks; the chosen spot is re-checked under its type's
+         * stripe and the search retried if another gate took it first.
+         */
+        public ParkingSpot claimSpot(Vehicle vehicle, int x, int y) {
+            while (true) {
+                int index = freeSpots.nearest(vehicle.getParkingSpotType().compatibleSpots(), x, y);
+                if (index < 0) {
+                    return null;
+                }
+                ParkingSpot spot = spots.get(index);
+                synchronized (freeSpots.lock(spot.getParkingSpotType())) {
+                    if (spot.isAvailable) {
+                        freeSpots.remove(spot);
+                        spot.vehicle = vehicle;
+                        spot.isAvailable = false;
+                    } else {
+                        continue;
+                    }
                 }
+                recordEvent(spot.getParkingSpotType(), false);
+                return spot;
+            }
+        }
 
+        void recordEvent(ParkingSpotType spotType, boolean exit) {
+            ParkingEventStream events = parkingLot == null ? null : parkingLot.getEventStream();
+            if (events != null) {
+                events.publish(level, spotType.ordinal(), exit);
             }
-            return null;
         }
 
         public void addSpot(ParkingSpot  parkingSpot) {
+            parkingSpot.parkingLevel = this;
+            parkingSpot.index = spots.size();
             spots.add(parkingSpot);
+            freeSpots.cover(parkingSpot);
+            if (parkingSpot.isAvailable()) {
+                synchronized (freeSpots.lock(parkingSpot.getParkingSpotType())) {
+                    freeSpots.push(parkingSpot);
+                }
+            }
+        }
+
+        // Provisioning path: grows the grid once for the whole batch and takes each type's stripe once
+        public void addSpots(List<ParkingSpot> parkingSpots) {
+            if (parkingSpots.isEmpty()) {
+                return;
+            }
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            ((ArrayList<ParkingSpot>) spots).ensureCapacity(spots.size() + parkingSpots.size());
+            for (ParkingSpot parkingSpot : parkingSpots) {
+                parkingSpot.parkingLevel = this;
+                parkingSpot.index = spots.size();
+                spots.add(parkingSpot);
+                minX = Math.min(minX, parkingSpot.x);
+                minY = Math.min(minY, parkingSpot.y);
+                maxX = Math.max(maxX, parkingSpot.x);
+                maxY = Math.max(maxY, parkingSpot.y);
+            }
+            freeSpots.cover(minX, minY);
+            freeSpots.cover(maxX, maxY);
+            for (ParkingSpotType spotType : ParkingSpotType.values()) {
+                synchronized (freeSpots.lock(spotType)) {
+                    for (ParkingSpot parkingSpot : parkingSpots) {
+                        if (parkingSpot.parkingSpotType == spotType && parkingSpot.isAvailable) {
+                            freeSpots.push(parkingSpot);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Marks a spot taken without recording a park event; used when restoring a snapshot
+        void restoreSpot(ParkingSpot spot, Vehicle vehicle) {
+            synchronized (freeSpots.lock(spot.getParkingSpotType())) {
+                if (spot.isAvailable) {
+                    freeSpots.remove(spot);
+                }
+                spot.vehicle = vehicle;
+                spot.isAvailable = false;
+            }
+        }
+
+        // Occupied spots as of one instant: all stripes of this level are held while each is copied
+        <T> List<T> occupiedSpots(Function<ParkingSpot, T> copy) {
+            List<T> occupied = new ArrayList<>();
+            freeSpots.withAllLocks(0, () -> {
+                for (ParkingSpot spot : spots) {
+                    if (!spot.isAvailable) {
+                        occupied.add(copy.apply(spot));
+                    }
+                }
+            });
+            return occupied;
+        }
+
+        public int getCellSize() {
+            return freeSpots.cellSize;
+        }
+    }
+
+    /**
+     * Spatial index of the free spots of one level: a grid of square cells over the spot
+     * coordinates, each cell holding one stack of free spot indexes per ParkingSpotType.
+     * positions remembers where each spot sits in its cell's stack, so a spot can be taken
+     * out in O(1) by swapping in the top element.
+     * Per type, a bitmap per cell row marks the cells holding a free spot and a row bitmap
+     * marks the rows that have any. nearest() walks rows outward from the gate and, within a
+     * row, cells outward, jumping over empty ones by bit scans, and stops once nothing left
+     * can be closer. Empty floor area costs a word scan, not a cell visit, so a nearly full
+     * or sparsely laid out level stays cheap.
+     * Each type is guarded by its own lock stripe; callers hold lock(type) around push/remove.
+     */
+    static class FreeSpotIndex {
+        static final int DEFAULT_CELL_SIZE = 8;
+        private static final int TYPES = ParkingSpotType.values().length;
+
+        private final List<ParkingSpot> spots;
+        private final int cellSize;
+        private final int[][] positions = new int[TYPES][16];
+        private final Object[] locks = new Object[TYPES];
+        // Readable without the stripe locks; dirtyTypes flags types whose count changed since the last publish
+        private final LongAdder[] freeCounters = new LongAdder[TYPES];
+        private final AtomicInteger dirtyTypes = new AtomicInteger();
+        // Replaced as a whole, under every stripe lock, when a new spot falls outside it
+        private volatile Grid grid;
+        // False while every spot sits at (0, 0), as with the coordinate-less constructor: any free spot is nearest
+        private volatile boolean positioned;
+
+        FreeSpotIndex(List<ParkingSpot> spots, int cellSize) {
+            this.spots = spots;
+            this.cellSize = cellSize;
+            this.grid = new Grid(0, 0, 1, 1);
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new Object();
+                freeCounters[i] = new LongAdder();
+            }
+        }
+
+        static class Cell {
+            int[] spots = new int[4];
+            int count;
+        }
+
+        static class Grid {
+            final int minCellX;
+            final int minCellY;
+            final int width;
+            final int height;
+            final Cell[][] cells = new Cell[TYPES][];
+            // Per type: bit (row * rowWords * 64 + column) set while that cell has a free spot
+            final int rowWords;
+            final long[][] columnBits = new long[TYPES][];
+            // Per type: bit per row set while any cell in the row has a free spot
+            final long[][] rowBits = new long[TYPES][];
+
+            Grid(int minCellX, int minCellY, int width, int height) {
+                this.minCellX = minCellX;
+                this.minCellY = minCellY;
+                this.width = width;
+                this.height = height;
+                this.rowWords = (width + 63) >>> 6;
+                for (int type = 0; type < TYPES; type++) {
+                    cells[type] = new Cell[width * height];
+                    columnBits[type] = new long[height * rowWords];
+                    rowBits[type] = new long[(height + 63) >>> 6];
+                }
+            }
+
+            void markFree(int type, int column, int row) {
+                columnBits[type][row * rowWords + (column >>> 6)] |= 1L << column;
+                rowBits[type][row >>> 6] |= 1L << row;
+            }
+
+            void markEmpty(int type, int column, int row) {
+                int base = row * rowWords;
+                columnBits[type][base + (column >>> 6)] &= ~(1L << column);
+                for (int word = 0; word < rowWords; word++) {
+                    if (columnBits[type][base + word] != 0) {
+                        return;
+                    }
+                }
+                rowBits[type][row >>> 6] &= ~(1L << row);
+            }
+
+            boolean contains(int cellX, int cellY) {
+                return cellX >= minCellX && cellX < minCellX + width && cellY >= minCellY && cellY < minCellY + height;
+            }
+
+            int slot(int cellX, int cellY) {
+                return (cellY - minCellY) * width + (cellX - minCellX);
+            }
+        }
+
+        Object lock(ParkingSpotType spotType) {
+            return locks[spotType.ordinal()];
+        }
+
+        public long freeCount(ParkingSpotType spotType) {
+            return freeCounters[spotType.ordinal()].sum();
+        }
+
+        int takeDirtyTypes() {
+            return dirtyTypes.getAndSet(0);
+        }
+
+        void markDirty(int type) {
+            int bit = 1 << type;
+            int mask;
+            do {
+                mask = dirtyTypes.get();
+                if ((mask & bit) != 0) {
+                    return;
+                }
+            } while (!dirtyTypes.compareAndSet(mask, mask | bit));
+        }
+
+        /**
+         * Index of the free spot of one of spotTypes nearest to (x, y), or -1.
+         * Lock-free and may be stale under concurrent claims; callers re-check under the stripe.
+         * Ties go to the earlier (smaller) spot type.
+         */
+        int nearest(ParkingSpotType[] spotTypes, int x, int y) {
+            Grid current = grid;
+            if (!positioned) {
+                return top(current, spotTypes);
+            }
+            int best = -1;
+            long bestDistance = Long.MAX_VALUE;
+            int centerRow = Math.floorDiv(y, cellSize) - current.minCellY;
+            int centerColumn = Math.floorDiv(x, cellSize) - current.minCellX;
+            // Rows at and after the gate's row go up, the rest go down; always take the nearer one next
+            int up = nextSet(current.rowBits, spotTypes, 0, current.height, Math.max(0, centerRow));
+            int down = previousSet(current.rowBits, spotTypes, 0, Math.min(current.height, centerRow) - 1);
+            while (up >= 0 || down >= 0) {
+                long upGap = up >= 0 ? gap(y, current.minCellY + up) : Long.MAX_VALUE;
+                long downGap = down >= 0 ? gap(y, current.minCellY + down) : Long.MAX_VALUE;
+                int row;
+                long rowGap;
+                if (upGap <= downGap) {
+                    row = up;
+                    rowGap = upGap;
+                    up = nextSet(current.rowBits, spotTypes, 0, current.height, up + 1);
+                } else {
+                    row = down;
+                    rowGap = downGap;
+                    down = previousSet(current.rowBits, spotTypes, 0, down - 1);
+                }
+                if (rowGap * rowGap > bestDistance) {
+                    break;
+                }
+                int base = row * current.rowWords;
+                int right = nextSet(current.columnBits, spotTypes, base, current.width, Math.max(0, centerColumn));
+                int left = previousSet(current.columnBits, spotTypes, base, Math.min(current.width, centerColumn) - 1);
+                while (right >= 0 || left >= 0) {
+                    long rightGap = right >= 0 ? gap(x, current.minCellX + right) : Long.MAX_VALUE;
+                    long leftGap = left >= 0 ? gap(x, current.minCellX + left) : Long.MAX_VALUE;
+                    int column;
+                    long columnGap;
+                    if (rightGap <= leftGap) {
+                        column = right;
+                        columnGap = rightGap;
+                        right = nextSet(current.columnBits, spotTypes, base, current.width, right + 1);
+                    } else {
+                        column = left;
+                        columnGap = leftGap;
+                        left = previousSet(current.columnBits, spotTypes, base, left - 1);
+                    }
+                    if (columnGap * columnGap + rowGap * rowGap > bestDistance) {
+                        break;
+                    }
+                    int slot = row * current.width + column;
+                    for (ParkingSpotType spotType : spotTypes) {
+                        Cell cell = current.cells[spotType.ordinal()][slot];
+                        if (cell == null) {
+                            continue;
+                        }
+                        int[] indexes = cell.spots;
+                        int count = Math.min(cell.count, indexes.length);
+                        for (int i = 0; i < count; i++) {
+                            ParkingSpot spot = spots.get(indexes[i]);
+                            long ddx = spot.x - x;
+                            long ddy = spot.y - y;
+                            long distance = ddx * ddx + ddy * ddy;
+                            if (distance < bestDistance) {
+                                if (distance == 0) {
+                                    return indexes[i];
+                                }
+                                bestDistance = distance;
+                                best = indexes[i];
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        // Every free spot is at (0, 0): the top of the first non-empty stack, as a plain free list would pop
+        private int top(Grid current, ParkingSpotType[] spotTypes) {
+            int slot = current.slot(0, 0);
+            for (ParkingSpotType spotType : spotTypes) {
+                Cell cell = current.cells[spotType.ordinal()][slot];
+                if (cell == null) {
+                    continue;
+                }
+                int[] indexes = cell.spots;
+                int count = Math.min(cell.count, indexes.length);
+                if (count > 0) {
+                    return indexes[count - 1];
+                }
+            }
+            return -1;
+        }
+
+        // Distance along one axis from coordinate to the nearest point of the cell starting at cell * cellSize
+        private long gap(int coordinate, int cell) {
+            long low = (long) cell * cellSize;
+            long high = low + cellSize - 1;
+            return coordinate < low ? low - coordinate : coordinate > high ? coordinate - high : 0;
+        }
+
+        // First bit at or after from, below limit, set for any of spotTypes in bits[type][base..], or -1
+        private static int nextSet(long[][] bits, ParkingSpotType[] spotTypes, int base, int limit, int from) {
+            if (from >= limit) {
+                return -1;
+            }
+            int word = from >>> 6;
+            int lastWord = (limit - 1) >>> 6;
+            long value = union(bits, spotTypes, base + word) & (-1L << from);
+            while (value == 0) {
+                if (++word > lastWord) {
+                    return -1;
+                }
+                value = union(bits, spotTypes, base + word);
+            }
+            int bit = (word << 6) + Long.numberOfTrailingZeros(value);
+            return bit < limit ? bit : -1;
+        }
+
+        // Last bit at or before from set for any of spotTypes in bits[type][base..], or -1
+        private static int previousSet(long[][] bits, ParkingSpotType[] spotTypes, int base, int from) {
+            if (from < 0) {
+                return -1;
+            }
+            int word = from >>> 6;
+            long value = union(bits, spotTypes, base + word) & (-1L >>> (63 - (from & 63)));
+            while (value == 0) {
+                if (--word < 0) {
+                    return -1;
+                }
+                value = union(bits, spotTypes, base + word);
+            }
+            return (word << 6) + 63 - Long.numberOfLeadingZeros(value);
+        }
+
+        private static long union(long[][] bits, ParkingSpotType[] spotTypes, int index) {
+            long value = 0;
+            for (ParkingSpotType spotType : spotTypes) {
+                value |= bits[spotType.ordinal()][index];
+            }
+            return value;
+        }
+
+        // Grows the grid so the spot's cell exists; doubles the extent to keep bulk loading linear
+        void cover(ParkingSpot spot) {
+            cover(spot.x, spot.y);
+        }
+
+        void cover(int x, int y) {
+            if (x != 0 || y != 0) {
+                positioned = true;
+            }
+            int cellX = Math.floorDiv(x, cellSize);
+            int cellY = Math.floorDiv(y, cellSize);
+            if (!grid.contains(cellX, cellY)) {
+                withAllLocks(0, () -> grow(cellX, cellY));
+            }
+        }
+
+        // Runs action holding the stripes of type and every later type
+        void withAllLocks(int type, Runnable action) {
+            if (type < TYPES) {
+                synchronized (locks[type]) {
+                    withAllLocks(type + 1, action);
+                }
+                return;
+            }
+            action.run();
+        }
+
+        private void grow(int cellX, int cellY) {
+            Grid old = grid;
+            if (old.contains(cellX, cellY)) {
+                return;
+            }
+            int minX = Math.min(old.minCellX, cellX);
+            int minY = Math.min(old.minCellY, cellY);
+            int maxX = Math.max(old.minCellX + old.width - 1, cellX);
+            int maxY = Math.max(old.minCellY + old.height - 1, cellY);
+            int width = Math.max(maxX - minX + 1, old.width * 2);
+            int height = Math.max(maxY - minY + 1, old.height * 2);
+            if (cellX < old.minCellX) {
+                minX = maxX - width + 1;
+            }
+            if (cellY < old.minCellY) {
+                minY = maxY - height + 1;
+            }
+            Grid grown = new Grid(minX, minY, width, height);
+            for (int cellY0 = old.minCellY; cellY0 < old.minCellY + old.height; cellY0++) {
+                for (int cellX0 = old.minCellX; cellX0 < old.minCellX + old.width; cellX0++) {
+                    for (int t = 0; t < TYPES; t++) {
+                        Cell cell = old.cells[t][old.slot(cellX0, cellY0)];
+                        grown.cells[t][grown.slot(cellX0, cellY0)] = cell;
+                        if (cell != null && cell.count > 0) {
+                            grown.markFree(t, cellX0 - grown.minCellX, cellY0 - grown.minCellY);
+                        }
+                    }
+                }
+            }
+            grid = grown;
+        }
+
+        void push(ParkingSpot spot) {
+            int type = spot.getParkingSpotType().ordinal();
+            Grid current = grid;
+            int cellX = Math.floorDiv(spot.x, cellSize);
+            int cellY = Math.floorDiv(spot.y, cellSize);
+            int slot = current.slot(cellX, cellY);
+            Cell cell = current.cells[type][slot];
+            if (cell == null) {
+                cell = new Cell();
+                current.cells[type][slot] = cell;
+            }
+            if (cell.count == cell.spots.length) {
+                cell.spots = Arrays.copyOf(cell.spots, cell.count * 2);
+            }
+            if (spot.index >= positions[type].length) {
+                positions[type] = Arrays.copyOf(positions[type], Math.max(positions[type].length * 2, spot.index + 1));
+            }
+            cell.spots[cell.count] = spot.index;
+            positions[type][spot.index] = cell.count;
+            cell.count++;
+            if (cell.count == 1) {
+                current.markFree(type, cellX - current.minCellX, cellY - current.minCellY);
+            }
+            freeCounters[type].increment();
+            markDirty(type);
+        }
+
+        void remove(ParkingSpot spot) {
+            int type = spot.getParkingSpotType().ordinal();
+            Grid current = grid;
+            int cellX = Math.floorDiv(spot.x, cellSize);
+            int cellY = Math.floorDiv(spot.y, cellSize);
+            Cell cell = current.cells[type][current.slot(cellX, cellY)];
+            int position = positions[type][spot.index];
+            int last = cell.spots[--cell.count];
+            cell.spots[position] = last;
+            positions[type][last] = position;
+            if (cell.count == 0) {
+                current.markEmpty(type, cellX - current.minCellX, cellY - current.minCellY);
+            }
+            freeCounters[type].decrement();
+            markDirty(type);
         }
     }
 
@@ -113,26 +706,77 @@ public  class ParkingSystem {
     static class ParkingSpot {
         String spotId;
         Vehicle vehicle;
-        Boolean isAvailable;
+        boolean isAvailable;
         ParkingSpotType parkingSpotType;
+        ParkingLevel parkingLevel;
+        int index;
+        // Position on the level floor plan, used to pick the spot nearest a gate
+        int x;
+        int y;
 
         public ParkingSpot(String spotId, ParkingSpotType parkingSpotType) {
+            this(spotId, parkingSpotType, 0, 0);
+        }
+
+        public ParkingSpot(String spotId, ParkingSpotType parkingSpotType, int x, int y) {
             this.spotId = spotId;
             this.parkingSpotType = parkingSpotType;
             this.isAvailable = true;
+            this.x = x;
+            this.y = y;
         }
 
         public Boolean canFitVehicle(Vehicle v) {
            // return this.isAvailable && v.getParkingSpotType().ordinal() <= parkingSpotType.ordinal();
              return this.isAvailable && v.getParkingSpotType().fitsIn(parkingSpotType);
         }
-        public void assignVehicle(Vehicle vehicle) {
-            this.vehicle = vehicle;
-            this.isAvailable = false;
+        // Parks the vehicle if the spot is still free; false if another vehicle already holds it
+        public boolean assignVehicle(Vehicle vehicle) {
+            if (parkingLevel == null) {
+                synchronized (this) {
+                    if (!this.isAvailable) {
+                        System.out.println("Parking spot " + spotId + " is already taken");
+                        return false;
+                    }
+                    this.vehicle = vehicle;
+                    this.isAvailable = false;
+                }
+                return true;
+            }
+            FreeSpotIndex freeSpots = parkingLevel.getFreeSpots();
+            synchronized (freeSpots.lock(parkingSpotType)) {
+                if (!this.isAvailable) {
+                    System.out.println("Parking spot " + spotId + " is already taken");
+                    return false;
+                }
+                freeSpots.remove(this);
+                this.vehicle = vehicle;
+                this.isAvailable = false;
+            }
+            parkingLevel.recordEvent(parkingSpotType, false);
+            return true;
         }
         public void removeVehicle() {
-            this.vehicle = null;
-            this.isAvailable = true;
+            if (parkingLevel == null) {
+                synchronized (this) {
+                    this.vehicle = null;
+                    this.isAvailable = true;
+                }
+                return;
+            }
+            FreeSpotIndex freeSpots = parkingLevel.getFreeSpots();
+            boolean left;
+            synchronized (freeSpots.lock(parkingSpotType)) {
+                left = !this.isAvailable;
+                if (left) {
+                    freeSpots.push(this);
+                }
+                this.vehicle = null;
+                this.isAvailable = true;
+            }
+            if (left) {
+                parkingLevel.recordEvent(parkingSpotType, true);
+            }
         }
 
         public boolean isAvailable() {
@@ -151,66 +795,629 @@ public  class ParkingSystem {
     }
     @Getter
     static class Ticket {
+        // Sequential rather than UUID: no SecureRandom on the entry path, and the id doubles as the registry key
+        private static final AtomicLong NEXT_NUMBER = new AtomicLong();
+
+        long number;
         String ticketId;
         Vehicle vehicle;
         ParkingSpot parkingSpot;
         LocalDateTime issuedAt;
 
         public Ticket(Vehicle vehicle, ParkingSpot parkingSpot) {
-            this.ticketId = UUID.randomUUID().toString();
+            this(NEXT_NUMBER.incrementAndGet(), vehicle, parkingSpot, LocalDateTime.now());
+        }
+
+        // After a restore, so new tickets never reuse a restored number
+        static void reserveNumbersThrough(long number) {
+            NEXT_NUMBER.accumulateAndGet(number, Math::max);
+        }
+
+        Ticket(long number, Vehicle vehicle, ParkingSpot parkingSpot, LocalDateTime issuedAt) {
+            this.number = number;
+            this.ticketId = Long.toString(number);
             this.vehicle = vehicle;
             this.parkingSpot = parkingSpot;
-            this.issuedAt = LocalDateTime.now();
+            this.issuedAt = issuedAt;
+        }
+    }
+
+    /**
+     * Per-lot counters, cheap enough to bump on every entry and exit from any gate thread.
+     * Rates are averaged since the lot was created; callers wanting a window diff two reads.
+     */
+    @Getter
+    static class LotMetrics {
+        final LongAdder entries = new LongAdder();
+        final LongAdder exits = new LongAdder();
+        // Arrivals turned away because every compatible spot was taken
+        final LongAdder rejected = new LongAdder();
+        final DoubleAdder revenue = new DoubleAdder();
+        final long startedNanos = System.nanoTime();
+
+        public double entriesPerSecond() {
+            return entries.sum() / elapsedSeconds();
+        }
+
+        public double exitsPerSecond() {
+            return exits.sum() / elapsedSeconds();
+        }
+
+        private double elapsedSeconds() {
+            return Math.max(1e-9, (System.nanoTime() - startedNanos) / 1e9);
+        }
+    }
+
+    /**
+     * All lots run by one service. Each lot keeps its own levels, tickets and metrics, and
+     * owns a single-thread executor, so lot-wide work (queries, reports, bulk changes) for
+     * one lot never queues behind another. Gates park and exit on their own threads as before.
+     */
+    static class ParkingLotRegistry implements AutoCloseable {
+        private final Map<String, ParkingLot> lots = new ConcurrentHashMap<>();
+        private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+        private final Map<String, List<ParkingLot>> lotsByCity = new ConcurrentHashMap<>();
+
+        // Lots need an id and a city (ParkingLot.INSTANCE has neither). Each lot gets its executor
+        // before it becomes visible, so submit and findFreeSpots never see a half-registered lot
+        public synchronized void addLot(ParkingLot parkingLot) {
+            if (parkingLot.getId() == null || parkingLot.getCity() == null) {
+                System.out.println("Parking lot " + parkingLot.getName() + " needs an id and a city to be registered");
+                return;
+            }
+            if (lots.containsKey(parkingLot.getId())) {
+                System.out.println("Parking lot " + parkingLot.getId() + " is already registered");
+                return;
+            }
+            executors.put(parkingLot.getId(), Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "parking-lot-" + parkingLot.getId());
+                thread.setDaemon(true);
+                return thread;
+            }));
+            lots.put(parkingLot.getId(), parkingLot);
+            lotsByCity.computeIfAbsent(parkingLot.getCity(), city -> new CopyOnWriteArrayList<>()).add(parkingLot);
+        }
+
+        public ParkingLot getLot(String lotId) {
+            return lots.get(lotId);
+        }
+
+        public List<ParkingLot> getLots(String city) {
+            return lotsByCity.getOrDefault(city, Collections.emptyList());
+        }
+
+        // Runs work on the lot's own executor
+        public <T> CompletableFuture<T> submit(String lotId, Function<ParkingLot, T> work) {
+            ParkingLot parkingLot = lots.get(lotId);
+            if (parkingLot == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown parking lot " + lotId));
+            }
+            return CompletableFuture.supplyAsync(() -> work.apply(parkingLot), executors.get(lotId));
+        }
+
+        /**
+         * Asks every lot in the city, in parallel on each lot's executor, for a free spot of
+         * the given type. Lots with one come back most free first.
+         */
+        public CompletableFuture<List<LotAvailability>> findFreeSpots(String city, ParkingSpotType spotType) {
+            List<CompletableFuture<LotAvailability>> answers = new ArrayList<>();
+            for (ParkingLot parkingLot : getLots(city)) {
+                answers.add(submit(parkingLot.getId(), lot -> {
+                    ParkingSpot spot = lot.findFreeSpot(spotType);
+                    return spot == null ? null : new LotAvailability(lot, spot, lot.freeCount(spotType));
+                }));
+            }
+            return CompletableFuture.allOf(answers.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+                List<LotAvailability> merged = new ArrayList<>();
+                for (CompletableFuture<LotAvailability> answer : answers) {
+                    LotAvailability availability = answer.join();
+                    if (availability != null) {
+                        merged.add(availability);
+                    }
+                }
+                merged.sort(Comparator.comparingLong(LotAvailability::getFreeSpots).reversed());
+                return merged;
+            });
+        }
+
+        public Map<String, LotMetrics> getMetrics() {
+            Map<String, LotMetrics> metrics = new HashMap<>();
+            for (ParkingLot parkingLot : lots.values()) {
+                metrics.put(parkingLot.getId(), parkingLot.getMetrics());
+            }
+            return metrics;
+        }
+
+        @Override
+        public void close() {
+            for (ExecutorService executor : executors.values()) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Getter
+    static class LotAvailability {
+        ParkingLot parkingLot;
+        // Free when looked at; it may be taken before the driver arrives
+        ParkingSpot spot;
+        long freeSpots;
+
+        public LotAvailability(ParkingLot parkingLot, ParkingSpot spot, long freeSpots) {
+            this.parkingLot = parkingLot;
+            this.spot = spot;
+            this.freeSpots = freeSpots;
         }
     }
 
+    /**
+     * Active tickets of one lot, kept off-heap. Each ticket is one fixed-size slot in a direct
+     * buffer, found through two open-addressing tables of primitive keys (ticket number and a
+     * 64-bit plate hash) to slot numbers. Nothing but the slot survives on heap; findBy*
+     * rebuilds a Ticket from the slot and the spot it points at, which still holds the Vehicle.
+     *
+     * Slot layout (40 bytes): ticket number (8) | issued at, wall-clock epoch seconds (8) |
+     * nanos (4) | level index (4) | spot index (4) | padding (4) | plate hash (8)
+     */
+    static class TicketRegistry {
+        private static final int SLOT_SIZE = 40;
+
+        private ByteBuffer slots;
+        private int[] freeSlots;
+        private int freeCount;
+        private int capacity;
+        private final LongIntTable byNumber;
+        private final LongIntTable byPlate;
+
+        public TicketRegistry(int capacity) {
+            this.capacity = capacity;
+            this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+            this.freeSlots = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                freeSlots[i] = capacity - 1 - i;
+            }
+            this.freeCount = capacity;
+            this.byNumber = new LongIntTable(capacity * 2);
+            this.byPlate = new LongIntTable(capacity * 2);
+        }
+
+        public synchronized void register(Ticket ticket, int levelIndex) {
+            if (freeCount == 0) {
+                grow();
+            }
+            int slot = freeSlots[--freeCount];
+            int base = slot * SLOT_SIZE;
+            LocalDateTime issuedAt = ticket.getIssuedAt();
+            slots.putLong(base, ticket.getNumber());
+            slots.putLong(base + 8, issuedAt.toEpochSecond(ZoneOffset.UTC));
+            slots.putInt(base + 16, issuedAt.getNano());
+            slots.putInt(base + 20, levelIndex);
+            slots.putInt(base + 24, ticket.getParkingSpot().index);
+            long plateHash = plateHash(ticket.getVehicle().getLicensePlate());
+            slots.putLong(base + 32, plateHash);
+            byNumber.put(ticket.getNumber(), slot);
+            // A plate parked twice resolves to its latest ticket
+            byPlate.put(plateHash, slot);
+        }
+
+        // Returns false if the ticket was not active
+        public synchronized boolean release(Ticket ticket) {
+            int slot = byNumber.remove(ticket.getNumber());
+            if (slot < 0) {
+                return false;
+            }
+            long plateHash = slots.getLong(slot * SLOT_SIZE + 32);
+            if (byPlate.get(plateHash) == slot) {
+                byPlate.remove(plateHash);
+            }
+            freeSlots[freeCount++] = slot;
+            return true;
+        }
+
+        public synchronized int size() {
+            return capacity - freeCount;
+        }
+
+        public Ticket findByTicketId(String ticketId, ParkingLot parkingLot) {
+            long number;
+            try {
+                number = Long.parseLong(ticketId);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid ticket id: " + ticketId);
+                return null;
+            }
+            synchronized (this) {
+                return toTicket(byNumber.get(number), parkingLot);
+            }
+        }
+
+        public Ticket findByPlate(String licensePlate, ParkingLot parkingLot) {
+            Ticket ticket;
+            synchronized (this) {
+                ticket = toTicket(byPlate.get(plateHash(licensePlate)), parkingLot);
+            }
+            // Guards against a 64-bit hash collision between two plates, and a spot emptied since the lookup
+            Vehicle vehicle = ticket == null ? null : ticket.getVehicle();
+            return vehicle != null && licensePlate.equals(vehicle.getLicensePlate()) ? ticket : null;
+        }
+
+        // Caller holds the registry lock
+        private Ticket toTicket(int slot, ParkingLot parkingLot) {
+            if (slot < 0) {
+                return null;
+            }
+            int base = slot * SLOT_SIZE;
+            ParkingLevel parkingLevel = parkingLot.getParkingLevels().get(slots.getInt(base + 20));
+            ParkingSpot spot = parkingLevel.getSpots().get(slots.getInt(base + 24));
+            LocalDateTime issuedAt = LocalDateTime.ofEpochSecond(slots.getLong(base + 8), slots.getInt(base + 16), ZoneOffset.UTC);
+            return new Ticket(slots.getLong(base), spot.getVehicle(), spot, issuedAt);
+        }
+
+        private void grow() {
+            int grown = capacity * 2;
+            ByteBuffer copy = ByteBuffer.allocateDirect(grown * SLOT_SIZE);
+            slots.clear();
+            copy.put(slots);
+            slots = copy;
+            freeSlots = Arrays.copyOf(freeSlots, grown);
+            for (int slot = grown - 1; slot >= capacity; slot--) {
+                freeSlots[freeCount++] = slot;
+            }
+            capacity = grown;
+        }
+
+        // 64-bit FNV-1a over the plate's chars
+        static long plateHash(String licensePlate) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < licensePlate.length(); i++) {
+                hash ^= licensePlate.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Open-addressing long -> int map with linear probing and backward-shift deletion.
+     * Values are non-negative; -1 marks an empty bucket and a missing key.
+     */
+    static class LongIntTable {
+        private long[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        LongIntTable(int expected) {
+            int buckets = Integer.highestOneBit(Math.max(4, expected * 2 - 1));
+            this.keys = new long[buckets];
+            this.values = new int[buckets];
+            Arrays.fill(values, -1);
+            this.mask = buckets - 1;
+        }
+
+        int get(long key) {
+            for (int i = bucket(key); ; i = (i + 1) & mask) {
+                if (values[i] < 0) {
+                    return -1;
+                }
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash();
+            }
+            int i = bucket(key);
+            while (values[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] < 0) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int remove(long key) {
+            int i = bucket(key);
+            while (values[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            if (removed < 0) {
+                return -1;
+            }
+            size--;
+            // Shift later entries of the probe run back so lookups never stop at the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; values[j] >= 0; j = (j + 1) & mask) {
+                int home = bucket(keys[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            values[hole] = -1;
+            return removed;
+        }
+
+        private int bucket(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            mask = keys.length - 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shared fee engine. The tariff in force is an immutable table swapped in with one
+     * volatile write, so reload() never blocks exits and every exit sees one whole tariff.
+     * Fees are charged per started hour from Ticket.issuedAt; each hour is priced by the
+     * band (weekday/weekend, hour of day) it starts in and each calendar day is capped.
+     * calculateFee allocates nothing.
+     */
     static class ParkingFeeCalculator {
+        public static final ParkingFeeCalculator INSTANCE = new ParkingFeeCalculator(Tariff.standard());
+        private volatile Tariff tariff;
+
+        public ParkingFeeCalculator(Tariff tariff) {
+            this.tariff = tariff;
+        }
+
+        public void reload(Tariff tariff) {
+            this.tariff = tariff;
+        }
+
+        public Tariff getTariff() {
+            return tariff;
+        }
+
         public double calculateFee(Ticket ticket) {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime issueTime = ticket.getIssuedAt();
+            return calculateFee(ticket, LocalDateTime.now());
+        }
 
-            double hourly = new HourlyCost().getHourlyCost(ticket.getParkingSpot().getParkingSpotType());
-            return hourly * 2;
+        public double calculateFee(Ticket ticket, LocalDateTime exitTime) {
+            // Wall-clock seconds, so hour-of-day and day-of-week come straight from the arithmetic
+            long start = ticket.getIssuedAt().toEpochSecond(ZoneOffset.UTC);
+            long end = exitTime.toEpochSecond(ZoneOffset.UTC);
+            return tariff.fee(ticket.getParkingSpot().getParkingSpotType(), start, end);
         }
     }
 
-    static class HourlyCost {
-        private Map<ParkingSpotType, Double> hourlyCosts = new HashMap<>();
-        public  HourlyCost() {
-            hourlyCosts.put(ParkingSpotType.SMALL, 20.0);
-            hourlyCosts.put(ParkingSpotType.LARGE, 30.0);
-            hourlyCosts.put(ParkingSpotType.MEDIUM, 10.0);
-            hourlyCosts.put(HANDICAPPED, 25.0);
+    /**
+     * Immutable tariff: a flat rate table indexed by spot type, weekday/weekend and hour of
+     * day, plus a daily cap per spot type. with* methods return modified copies.
+     */
+    static class Tariff {
+        private static final int TYPES = ParkingSpotType.values().length;
+        private static final long HOUR = 3600;
+        private static final long DAY = 24 * HOUR;
+
+        // [(type * 2 + weekend) * 24 + hour]
+        private final double[] rates;
+        private final double[] dailyCaps;
 
+        public Tariff(EnumMap<ParkingSpotType, Double> hourlyRates) {
+            this.rates = new double[TYPES * 2 * 24];
+            this.dailyCaps = new double[TYPES];
+            Arrays.fill(dailyCaps, Double.POSITIVE_INFINITY);
+            for (Map.Entry<ParkingSpotType, Double> entry : hourlyRates.entrySet()) {
+                int type = entry.getKey().ordinal();
+                Arrays.fill(rates, type * 48, type * 48 + 48, entry.getValue());
+            }
+        }
+
+        private Tariff(double[] rates, double[] dailyCaps) {
+            this.rates = rates;
+            this.dailyCaps = dailyCaps;
+        }
+
+        // The original flat hourly prices, no bands or caps
+        public static Tariff standard() {
+            EnumMap<ParkingSpotType, Double> hourlyRates = new EnumMap<>(ParkingSpotType.class);
+            hourlyRates.put(ParkingSpotType.SMALL, 20.0);
+            hourlyRates.put(ParkingSpotType.LARGE, 30.0);
+            hourlyRates.put(ParkingSpotType.MEDIUM, 10.0);
+            hourlyRates.put(HANDICAPPED, 25.0);
+            return new Tariff(hourlyRates);
         }
 
-        public  double getHourlyCost(ParkingSpotType parkingSpotType) {
-            return hourlyCosts.get(parkingSpotType);
+        // Multiplies the rate of hours [fromHour, toHour) on weekdays or weekends, for every spot type
+        public Tariff withBand(boolean weekend, int fromHour, int toHour, double multiplier) {
+            double[] banded = rates.clone();
+            for (int type = 0; type < TYPES; type++) {
+                int base = (type * 2 + (weekend ? 1 : 0)) * 24;
+                for (int hour = fromHour; hour < toHour; hour++) {
+                    banded[base + hour] *= multiplier;
+                }
+            }
+            return new Tariff(banded, dailyCaps);
+        }
+
+        public Tariff withDailyCap(ParkingSpotType spotType, double cap) {
+            double[] caps = dailyCaps.clone();
+            caps[spotType.ordinal()] = cap;
+            return new Tariff(rates, caps);
+        }
+
+        public double hourlyRate(ParkingSpotType spotType, boolean weekend, int hour) {
+            return rates[(spotType.ordinal() * 2 + (weekend ? 1 : 0)) * 24 + hour];
+        }
+
+        // start and end are wall-clock epoch seconds; at least one hour is charged
+        double fee(ParkingSpotType spotType, long start, long end) {
+            int type = spotType.ordinal();
+            double cap = dailyCaps[type];
+            double total = 0;
+            long day = Math.floorDiv(start, DAY);
+            double dayTotal = 0;
+            long hourStart = start;
+            do {
+                long hourDay = Math.floorDiv(hourStart, DAY);
+                if (hourDay != day) {
+                    total += Math.min(dayTotal, cap);
+                    day = hourDay;
+                    dayTotal = 0;
+                }
+                if (dayTotal < cap) {
+                    // 1970-01-01 was a Thursday: Monday is 0, Saturday 5, Sunday 6
+                    int weekend = Math.floorMod(day + 3, 7) >= 5 ? 1 : 0;
+                    int hour = (int) ((hourStart - day * DAY) / HOUR);
+                    dayTotal += rates[(type * 2 + weekend) * 24 + hour];
+                    hourStart += HOUR;
+                } else {
+                    // Capped: the rest of this day is free, skip to the first hour starting tomorrow
+                    long skip = ((day + 1) * DAY - hourStart + HOUR - 1) / HOUR;
+                    hourStart += skip * HOUR;
+                }
+            } while (hourStart < end);
+            return total + Math.min(dayTotal, cap);
+        }
+    }
+
+    interface OccupancyListener {
+        void onOccupancyChanged(Integer level, ParkingSpotType spotType, long freeSpots);
+    }
+
+    /**
+     * Pushes per-level free counts to displays. Parking and exits only flag the changed
+     * level/type in FreeSpotIndex (no allocation); publish() reads the flags once per period,
+     * so any number of changes in between reach each listener as one update with the latest count.
+     */
+    static class OccupancyFeed {
+        private final ParkingLot parkingLot;
+        private final List<OccupancyListener> listeners = new CopyOnWriteArrayList<>();
+        private final ParkingSpotType[] spotTypes = ParkingSpotType.values();
+
+        public OccupancyFeed(ParkingLot parkingLot) {
+            this.parkingLot = parkingLot;
+        }
+
+        // New subscribers get the full board on the next publish
+        public void subscribe(OccupancyListener listener) {
+            listeners.add(listener);
+            for (ParkingLevel parkingLevel : parkingLot.getParkingLevels()) {
+                for (ParkingSpotType spotType : spotTypes) {
+                    parkingLevel.getFreeSpots().markDirty(spotType.ordinal());
+                }
+            }
+        }
+
+        public void unsubscribe(OccupancyListener listener) {
+            listeners.remove(listener);
+        }
+
+        public void publish() {
+            for (ParkingLevel parkingLevel : parkingLot.getParkingLevels()) {
+                int dirty = parkingLevel.getFreeSpots().takeDirtyTypes();
+                while (dirty != 0) {
+                    int type = Integer.numberOfTrailingZeros(dirty);
+                    dirty &= dirty - 1;
+                    long free = parkingLevel.freeCount(spotTypes[type]);
+                    for (OccupancyListener listener : listeners) {
+                        listener.onOccupancyChanged(parkingLevel.getLevel(), spotTypes[type], free);
+                    }
+                }
+            }
+        }
+
+        public ScheduledExecutorService start(Duration period) {
+            ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "occupancy-feed");
+                thread.setDaemon(true);
+                return thread;
+            });
+            publisher.scheduleAtFixedRate(this::publish, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+            return publisher;
         }
     }
-    static class EntryPanel {
+
+    static class EntryPanel implements OccupancyListener {
         String id;
+        ParkingLot parkingLot;
+        // Level and floor position the gate feeds into; a negative level lets the id pick one
+        int level;
+        int x;
+        int y;
 
         public EntryPanel(String id) {
+            this(id, -1, 0, 0);
+        }
+
+        public EntryPanel(String id, int level, int x, int y) {
+            this(ParkingLot.INSTANCE, id, level, x, y);
+        }
+
+        public EntryPanel(ParkingLot parkingLot, String id, int level, int x, int y) {
+            this.parkingLot = parkingLot;
             this.id = id;
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void onOccupancyChanged(Integer level, ParkingSpotType spotType, long freeSpots) {
+            System.out.println("Level " + level + ": " + freeSpots + " " + spotType + " free");
         }
 
         public Ticket issueTicket(Vehicle vehicle) {
             //return ParkingLot.INSTANCE.parkVehicle(vehicle);
-            return ParkingLot.INSTANCE.parkVehicle(vehicle);
+            // Gates without a level start on different levels so they rarely share a lock stripe
+            int levels = parkingLot.getParkingLevels().size();
+            int startLevel = level >= 0 ? level : levels == 0 ? 0 : Math.floorMod(id.hashCode(), levels);
+            return parkingLot.parkVehicle(vehicle, startLevel, x, y);
         }
     }
         static class ExitPanel {
             String id;
-
+            ParkingLot parkingLot;
 
             public ExitPanel(String id) {
+                this(ParkingLot.INSTANCE, id);
+            }
+
+            public ExitPanel(ParkingLot parkingLot, String id) {
+                this.parkingLot = parkingLot;
                 this.id = id;
             }
 
             public Double calculateFee(Ticket ticket) {
-                return ParkingLot.INSTANCE.exitVehicle(ticket);
-                //return parkingLot.exitVehicle(ticket);
+                return showFee(parkingLot.exitVehicle(ticket));
+            }
+
+            // For lost tickets: the car is found by its plate
+            public Double calculateFeeByPlate(String licensePlate) {
+                Ticket ticket = parkingLot.findTicketByPlate(licensePlate);
+                if (ticket == null) {
+                    System.out.println("No parked vehicle with plate " + licensePlate);
+                    return null;
+                }
+                return showFee(parkingLot.exitVehicle(ticket));
+            }
+
+            private Double showFee(Double fee) {
+                if (fee != null) {
+                    System.out.println("Parking Fee: $" + fee);
+                }
+                return fee;
             }
         }
 
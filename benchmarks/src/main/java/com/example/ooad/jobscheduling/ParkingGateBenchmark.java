@@ -0,0 +1,86 @@
+package com.example.ooad.jobscheduling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+
+/**
+ * Entry gate contention: every JMH thread is one EntryPanel, so run it at several thread counts
+ * (BenchmarkRunner does 1, 4 and 16 by default) to compare gate counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingGateBenchmark {
+
+    static class Car extends ParkingSpotType.Vehicle {
+        Car(String licensePlate) {
+            super(licensePlate, ParkingSpotType.SMALL);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lot {
+        @Param({"10000"})
+        int spots;
+
+        @Param({"10"})
+        int levels;
+
+        ParkingSpotType.ParkingLot lot;
+
+        @Setup
+        public void setUp() {
+            lot = ParkingSpotType.ParkingLot.INSTANCE;
+            lot.getParkingLevels().clear();
+            ParkingSpotType[] types = {ParkingSpotType.SMALL, ParkingSpotType.MEDIUM, ParkingSpotType.LARGE, ParkingSpotType.HANDICAPPED};
+            for (int level = 0; level < levels; level++) {
+                ParkingSpotType.ParkingLevel parkingLevel = new ParkingSpotType.ParkingLevel(level);
+                for (int i = 0; i < spots / levels; i++) {
+                    parkingLevel.addSpot(new ParkingSpotType.ParkingSpot(level + "-" + i, types[i % types.length]));
+                }
+                lot.addParkingLevel(parkingLevel);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Gate {
+        private static final AtomicInteger NEXT_GATE = new AtomicInteger();
+
+        ParkingSpotType.EntryPanel panel;
+        Car car;
+
+        @Setup
+        public void setUp() {
+            int gate = NEXT_GATE.getAndIncrement();
+            panel = new ParkingSpotType.EntryPanel("gate-" + gate);
+            car = new Car("GATE-" + gate);
+        }
+    }
+
+    // Park and leave again through the exit path, so the lot and its ticket registry stay at their starting size
+    @Benchmark
+    public ParkingSpotType.Ticket parkAndLeave(Lot lot, Gate gate) {
+        ParkingSpotType.Ticket ticket = gate.panel.issueTicket(gate.car);
+        if (ticket != null) {
+            lot.lot.exitVehicle(ticket);
+        }
+        return ticket;
+    }
+}
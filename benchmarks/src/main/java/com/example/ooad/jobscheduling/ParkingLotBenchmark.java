@@ -0,0 +1,70 @@
+package com.example.ooad.jobscheduling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParkingLotBenchmark {
+
+    static class Car extends ParkingSpotType.Vehicle {
+        Car(String licensePlate) {
+            super(licensePlate, ParkingSpotType.MEDIUM);
+        }
+    }
+
+    @Param({"1000", "10000"})
+    int spots;
+
+    @Param({"0.9"})
+    double occupancy;
+
+    ParkingSpotType.ParkingLot lot;
+    Car car;
+
+    @Setup
+    public void setUp() {
+        lot = ParkingSpotType.ParkingLot.INSTANCE;
+        lot.getParkingLevels().clear();
+        int levels = 10;
+        ParkingSpotType[] types = {ParkingSpotType.SMALL, ParkingSpotType.MEDIUM, ParkingSpotType.LARGE, ParkingSpotType.HANDICAPPED};
+        for (int level = 0; level < levels; level++) {
+            ParkingSpotType.ParkingLevel parkingLevel = new ParkingSpotType.ParkingLevel(level);
+            for (int i = 0; i < spots / levels; i++) {
+                parkingLevel.addSpot(new ParkingSpotType.ParkingSpot(level + "-" + i, types[i % types.length]));
+            }
+            lot.addParkingLevel(parkingLevel);
+        }
+        int occupied = (int) (spots * occupancy);
+        for (int i = 0; i < occupied; i++) {
+            Car parked = new Car("P" + i);
+            ParkingSpotType.ParkingSpot spot = lot.findSpot(parked);
+            if (spot == null || !spot.assignVehicle(parked)) {
+                break;
+            }
+        }
+        car = new Car("BENCH");
+    }
+
+    @Benchmark
+    public ParkingSpotType.ParkingSpot findSpot() {
+        return lot.findSpot(car);
+    }
+}
@@ -0,0 +1,39 @@
+package ooad;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark and writes one JMH JSON result file per thread count, e.g. jmh-result-t4.json,
+ * so runs can be diffed across changes.
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar [threadCounts] [include regex]
+ * e.g.   java -jar benchmarks/target/benchmarks.jar 1,4,16 MovieTicket
+ *
+ * Only the ticket seat paths and the parking gates are safe to share between threads, so the
+ * remaining systems (single-writer by design) are measured at one thread only.
+ */
+public class BenchmarkRunner {
+
+    private static final String CONCURRENT = "(MovieTicketBenchmark|EventTicketBenchmark|ParkingLotBenchmark|ParkingGateBenchmark)";
+    private static final String SINGLE_THREADED = "(LibraryBenchmark|FoodOrderingBenchmark|JobManagerBenchmark|JobIoBenchmark)";
+
+    public static void main(String[] args) throws RunnerException {
+        String[] threadCounts = (args.length > 0 ? args[0] : "1,4,16").split(",");
+        String filter = args.length > 1 ? args[1] : ".*";
+        for (String value : threadCounts) {
+            int threads = Integer.parseInt(value.trim());
+            String include = threads == 1 ? "(" + CONCURRENT + "|" + SINGLE_THREADED + ")" : CONCURRENT;
+            Options options = new OptionsBuilder()
+                    .include("^(?=.*" + filter + ").*\\." + include + "\\..*")
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-t" + threads + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
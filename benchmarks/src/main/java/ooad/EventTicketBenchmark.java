@@ -0,0 +1,56 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventTicketBenchmark {
+
+    @Param({"100", "400", "5000"})
+    int seats;
+
+    EventManagementSystem.ShowTime showTime;
+    final AtomicInteger nextSeat = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        EventManagementSystem.Venue venue = new EventManagementSystem.Venue("venue", "address");
+        EventManagementSystem.Event event = new EventManagementSystem.Concert("concert", "", new Date(), venue, "artist");
+        showTime = new EventManagementSystem.ShowTime(new Date(), venue, event);
+        for (int seatNumber = 1; seatNumber <= seats; seatNumber++) {
+            showTime.addSeat(new EventManagementSystem.Seat(seatNumber));
+        }
+        nextSeat.set(0);
+    }
+
+    @Benchmark
+    public boolean isSeatAvailable() {
+        return showTime.isSeatAvailable(1 + ThreadLocalRandom.current().nextInt(seats));
+    }
+
+    @Benchmark
+    public EventManagementSystem.ShowTime bookSeat() {
+        showTime.bookSeat(1 + (nextSeat.getAndIncrement() & Integer.MAX_VALUE) % seats);
+        return showTime;
+    }
+}
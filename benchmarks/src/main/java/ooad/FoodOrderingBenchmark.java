@@ -0,0 +1,56 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FoodOrderingBenchmark {
+
+    @Param({"1", "10"})
+    int itemsPerOrder;
+
+    FoodOrderingSystem system = new FoodOrderingSystem();
+    FoodOrderingSystem.OrderingSystem orderingSystem;
+    FoodOrderingSystem.Order order;
+
+    // The ordering system keeps every order, so start from an empty one each iteration
+    @Setup(Level.Iteration)
+    public void setUp() {
+        orderingSystem = system.new OrderingSystem();
+        FoodOrderingSystem.Menu menu = system.new Menu();
+        List<FoodOrderingSystem.OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemsPerOrder; i++) {
+            FoodOrderingSystem.MenuItem menuItem = system.new MenuItem("item " + i, "i" + i, 9.5);
+            menu.addMenuItem(menuItem);
+            items.add(system.new OrderItem(menuItem, 1));
+        }
+        FoodOrderingSystem.Restaurant restaurant = system.new Restaurant("restaurant", "r1", "address", menu);
+        orderingSystem.addRestaurant(restaurant);
+        order = system.new Order("o1", restaurant, items, FoodOrderingSystem.OrderStatus.PENDING, null);
+    }
+
+    @Benchmark
+    public FoodOrderingSystem.Order placeOrder() {
+        orderingSystem.placeOrder(order);
+        return order;
+    }
+}
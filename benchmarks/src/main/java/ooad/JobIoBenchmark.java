@@ -0,0 +1,111 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to finish a burst of I/O-bound jobs: the virtual-thread executor against a fixed pool of
+ * platform threads. Below Java 21 the "virtual" mode runs on its fallback pool, sized like the
+ * platform pool, and setUp says so.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobIoBenchmark {
+
+    // Blocks for the simulated round trip, like an EmailJob waiting on SMTP
+    static class LatencyJob extends JobRunner.Job {
+        final long latencyMillis;
+        CountDownLatch done;
+
+        LatencyJob(String name, long latencyMillis) {
+            super(name, JobRunner.Priority.MEDIUM);
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public void execute() {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        }
+    }
+
+    @Param({"virtual", "platform"})
+    String mode;
+
+    @Param({"2000"})
+    int jobs;
+
+    @Param({"10"})
+    long latencyMillis;
+
+    // Size of the fixed platform pool in "platform" mode, and of the fallback pool in "virtual" mode below Java 21
+    @Param({"200"})
+    int poolSize;
+
+    JobRunner.VirtualThreadJobExecutor virtualExecutor;
+    ExecutorService platformPool;
+    LatencyJob[] burst;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        virtualExecutor = new JobRunner.VirtualThreadJobExecutor(Integer.MAX_VALUE, poolSize);
+        if (mode.equals("virtual") && !virtualExecutor.isVirtual()) {
+            System.out.println("Virtual threads need Java 21, this is " + Runtime.version().feature()
+                    + ": \"virtual\" measures the " + poolSize + "-thread platform fallback");
+        }
+        platformPool = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        burst = new LatencyJob[jobs];
+        for (int i = 0; i < jobs; i++) {
+            burst[i] = new LatencyJob("io-" + i, latencyMillis);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        virtualExecutor.close();
+        platformPool.shutdownNow();
+    }
+
+    @Benchmark
+    public void runBurst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(jobs);
+        boolean virtual = mode.equals("virtual");
+        for (LatencyJob job : burst) {
+            job.done = done;
+            if (virtual) {
+                virtualExecutor.submit(job);
+            } else {
+                platformPool.execute(job::execute);
+            }
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,94 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JobManagerBenchmark {
+
+    // Counts instead of printing so the job body stays out of the measurement; runs on the workers
+    static class CountingJob extends JobRunner.Job {
+        final LongAdder runs = new LongAdder();
+
+        CountingJob(String name, JobRunner.Priority priority) {
+            super(name, priority);
+        }
+
+        @Override
+        public void execute() {
+            runs.increment();
+        }
+    }
+
+    // Fires on minutes where minute-of-epoch % period == offset
+    static class EveryNMinutes implements JobRunner.Schedule {
+        final long period;
+        final long offset;
+
+        EveryNMinutes(long period, long offset) {
+            this.period = period;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean shouldRun(LocalDateTime localDateTime) {
+            return Math.floorMod(localDateTime.toEpochSecond(ZoneOffset.UTC) / 60, period) == offset;
+        }
+
+        @Override
+        public LocalDateTime nextFireTime(LocalDateTime after) {
+            long minute = after.toEpochSecond(ZoneOffset.UTC) / 60 + 1;
+            minute += Math.floorMod(offset - minute, period);
+            return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+        }
+    }
+
+    @Param({"1000", "200000"})
+    int jobs;
+
+    // Fraction of jobs that are due on every tick
+    @Param({"0.01"})
+    double dueRatio;
+
+    JobRunner.JobScheduler scheduler;
+    LocalDateTime now;
+
+    @Setup
+    public void setUp() {
+        scheduler = new JobRunner.JobScheduler();
+        now = LocalDateTime.of(2026, 1, 1, 0, 0);
+        JobRunner.Priority[] priorities = JobRunner.Priority.values();
+        int dueEvery = Math.max(1, (int) Math.round(1 / dueRatio));
+        for (int i = 0; i < jobs; i++) {
+            JobRunner.Schedule schedule = new EveryNMinutes(dueEvery, i % dueEvery);
+            scheduler.addScheduledJob(new JobRunner.ScheduledJob(new CountingJob("job-" + i, priorities[i % priorities.length]), schedule), now);
+        }
+    }
+
+    // One scheduler tick a minute later than the last: dispatches and requeues the due jobs only
+    @Benchmark
+    public JobRunner.JobScheduler runJobs() {
+        now = now.plusMinutes(1);
+        JobRunner.JobManager.INSTANCE.runJobs(scheduler, now);
+        return scheduler;
+    }
+}
@@ -0,0 +1,54 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibraryBenchmark {
+
+    @Param({"1000", "100000"})
+    int books;
+
+    LibraryManagement.Library library;
+    LibraryManagement.Member member;
+    String[] barcodes;
+    int next;
+
+    @Setup
+    public void setUp() {
+        library = LibraryManagement.Library.INSTANCE;
+        library.getBookItems().clear();
+        library.getActiveLoans().clear();
+        for (int i = 0; i < books; i++) {
+            library.addBook(new LibraryManagement.Book("isbn-" + i, "title " + i, "author", "publisher", new Date(), 1, 1));
+        }
+        barcodes = library.getBookItems().keySet().toArray(new String[0]);
+        member = new LibraryManagement.Member("m1", "555", "member", "member@example.com");
+    }
+
+    // Loan and return together so the member never hits the borrowing limit
+    @Benchmark
+    public LibraryManagement.Loan loanAndReturn() {
+        String barcode = barcodes[next++ % barcodes.length];
+        LibraryManagement.Loan loan = library.loanBook(barcode, member);
+        library.returnBook(barcode, member);
+        return loan;
+    }
+}
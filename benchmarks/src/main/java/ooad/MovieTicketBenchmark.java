@@ -0,0 +1,58 @@
+package ooad;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieTicketBenchmark {
+
+    @Param({"100", "400", "5000"})
+    int seats;
+
+    MovieTicketSystem.ShowTime showTime;
+    // Shared so concurrent threads contend on the same seats
+    final AtomicInteger nextSeat = new AtomicInteger();
+
+    // Fresh showtime per iteration; once every seat is gone bookSeat measures the rejected claim path
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<MovieTicketSystem.Seat> seatList = new ArrayList<>(seats);
+        for (int seatNumber = 1; seatNumber <= seats; seatNumber++) {
+            seatList.add(new MovieTicketSystem.Seat(seatNumber, MovieTicketSystem.SeatType.REGULAR));
+        }
+        showTime = new MovieTicketSystem.ShowTime(LocalDateTime.now(), null, null, seatList);
+        nextSeat.set(0);
+    }
+
+    @Benchmark
+    public boolean isSeatAvailable() {
+        return showTime.isSeatAvailable(1 + ThreadLocalRandom.current().nextInt(seats));
+    }
+
+    @Benchmark
+    public boolean bookSeat() {
+        return showTime.bookSeat(1 + (nextSeat.getAndIncrement() & Integer.MAX_VALUE) % seats);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ooad.jobscheduling;
+
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLevel;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingSpot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FreeSpotIndexTest {
+
+    static class TestVehicle extends Vehicle {
+        TestVehicle(String licensePlate, ParkingSpotType parkingSpotType) {
+            super(licensePlate, parkingSpotType);
+        }
+    }
+
+    // Sparse random layouts, including negative coordinates, checked against a full scan while spots fill and free up
+    @Test
+    void nearestMatchesBruteForce() {
+        Random random = new Random(42);
+        for (int layout = 0; layout < 20; layout++) {
+            ParkingLevel parkingLevel = new ParkingLevel(0, 1 + random.nextInt(16));
+            List<ParkingSpot> spots = new ArrayList<>();
+            int spread = 50 + random.nextInt(2000);
+            for (int i = 0; i < 500; i++) {
+                ParkingSpotType spotType = ParkingSpotType.values()[random.nextInt(3)];
+                spots.add(new ParkingSpot("s" + i, spotType, random.nextInt(spread) - spread / 3, random.nextInt(spread) - spread / 3));
+            }
+            // Half in bulk, half one by one, so the grid also grows while it holds free spots
+            parkingLevel.addSpots(spots.subList(0, 250));
+            for (ParkingSpot spot : spots.subList(250, spots.size())) {
+                parkingLevel.addSpot(spot);
+            }
+            for (int step = 0; step < 400; step++) {
+                ParkingSpot spot = spots.get(random.nextInt(spots.size()));
+                if (spot.isAvailable()) {
+                    spot.assignVehicle(new TestVehicle("P" + step, spot.getParkingSpotType()));
+                } else if (random.nextInt(3) == 0) {
+                    spot.removeVehicle();
+                }
+                Vehicle vehicle = new TestVehicle("Q" + step, ParkingSpotType.values()[random.nextInt(3)]);
+                int x = random.nextInt(spread * 2) - spread / 2;
+                int y = random.nextInt(spread * 2) - spread / 2;
+                assertEquals(bruteForce(spots, vehicle, x, y), distance(parkingLevel.findAvailableSlot(vehicle, x, y), x, y),
+                        "layout " + layout + " step " + step);
+            }
+        }
+    }
+
+    @Test
+    void spotsWithoutCoordinatesPopInConstantOrder() {
+        ParkingLevel parkingLevel = new ParkingLevel(0);
+        for (int i = 0; i < 3; i++) {
+            parkingLevel.addSpot(new ParkingSpot("s" + i, ParkingSpotType.MEDIUM));
+        }
+        Vehicle vehicle = new TestVehicle("CAR", ParkingSpotType.MEDIUM);
+        ParkingSpot first = parkingLevel.claimSpot(vehicle, 40, 40);
+        assertNotNull(first);
+        assertSame(parkingLevel.getSpots().get(2), first);
+        assertNotNull(parkingLevel.claimSpot(vehicle));
+        assertNotNull(parkingLevel.claimSpot(vehicle));
+        assertNull(parkingLevel.claimSpot(vehicle));
+    }
+
+    private static long bruteForce(List<ParkingSpot> spots, Vehicle vehicle, int x, int y) {
+        long best = Long.MAX_VALUE;
+        for (ParkingSpot spot : spots) {
+            if (spot.isAvailable() && vehicle.getParkingSpotType().fitsIn(spot.getParkingSpotType())) {
+                best = Math.min(best, distance(spot, x, y));
+            }
+        }
+        return best;
+    }
+
+    private static long distance(ParkingSpot spot, int x, int y) {
+        if (spot == null) {
+            return Long.MAX_VALUE;
+        }
+        long dx = spot.getX() - x;
+        long dy = spot.getY() - y;
+        return dx * dx + dy * dy;
+    }
+}
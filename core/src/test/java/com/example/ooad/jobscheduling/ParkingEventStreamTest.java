@@ -0,0 +1,50 @@
+package com.example.ooad.jobscheduling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingEventStreamTest {
+
+    @Test
+    void negativeLevelsRollUpUnderTheirOwnNumber(@TempDir Path directory) throws Exception {
+        try (ParkingEventStream stream = new ParkingEventStream(directory)) {
+            assertTrue(stream.publish(-2, 1, false));
+            assertTrue(stream.publish(-2, 1, false));
+            assertTrue(stream.publish(3, 1, false));
+            assertFalse(stream.publish(1 << 20, 1, false));
+        }
+        List<String> rows = new ArrayList<>();
+        ParkingEventStream.RollupFile.scan(directory.resolve(ParkingEventStream.HOURS_FILE),
+                (periodStart, level, spotType, parks, exits, occupancy, peak) -> rows.add(level + ":" + parks));
+        assertEquals(List.of("-2:2", "3:1"), rows);
+    }
+
+    @Test
+    void failedBlockIsCountedAndAggregationContinues(@TempDir Path directory) throws Exception {
+        ParkingEventStream.RollupFile minutes = new ParkingEventStream.RollupFile(directory.resolve("minutes"));
+        minutes.close();
+        LongAdder failedWrites = new LongAdder();
+        ParkingEventStream.Aggregator aggregator = new ParkingEventStream.Aggregator(minutes,
+                new ParkingEventStream.RollupFile(directory.resolve("hours")), failedWrites);
+
+        aggregator.apply(0, 0, 1, false);
+        aggregator.apply(60, 0, 1, false);
+        aggregator.apply(120, 0, 1, true);
+        assertEquals(2, failedWrites.sum());
+
+        aggregator.advanceTo(3600);
+        List<Integer> occupancy = new ArrayList<>();
+        ParkingEventStream.RollupFile.scan(directory.resolve("hours"),
+                (periodStart, level, spotType, parks, exits, closeOccupancy, peak) -> occupancy.add(closeOccupancy));
+        assertEquals(List.of(1), occupancy);
+    }
+}
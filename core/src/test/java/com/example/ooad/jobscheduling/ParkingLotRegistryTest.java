@@ -0,0 +1,38 @@
+package com.example.ooad.jobscheduling;
+
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLotRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingLotRegistryTest {
+
+    @Test
+    void lotWithoutCityIsRejectedWithoutPartialState() {
+        try (ParkingLotRegistry registry = new ParkingLotRegistry()) {
+            registry.addLot(new ParkingLot("nowhere", "No city", "1 Main St", null));
+            registry.addLot(ParkingLot.INSTANCE);
+
+            assertNull(registry.getLot("nowhere"));
+            assertTrue(registry.getMetrics().isEmpty());
+            assertTrue(registry.submit("nowhere", lot -> lot).isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void duplicateIdKeepsTheFirstLot() {
+        try (ParkingLotRegistry registry = new ParkingLotRegistry()) {
+            ParkingLot first = new ParkingLot("lot-1", "First", "1 Main St", "Springfield");
+            registry.addLot(first);
+            registry.addLot(new ParkingLot("lot-1", "Second", "2 Main St", "Springfield"));
+
+            assertSame(first, registry.getLot("lot-1"));
+            assertEquals(1, registry.getLots("Springfield").size());
+            assertSame(first, registry.submit("lot-1", lot -> lot).join());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ooad.jobscheduling;
+
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLevel;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingSpot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Ticket;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingLotStoreTest {
+
+    static class Car extends Vehicle {
+        Car(String licensePlate) {
+            super(licensePlate, ParkingSpotType.MEDIUM);
+        }
+    }
+
+    @Test
+    void occupancyRoundTripsWithTickets(@TempDir Path directory) throws Exception {
+        ParkingLot parkingLot = newLot();
+        Ticket first = parkingLot.parkVehicle(new Car("FIRST"));
+        Ticket second = parkingLot.parkVehicle(new Car("SECOND"), 1);
+        Path snapshot = directory.resolve("occupancy.bin");
+        ParkingLotStore.writeOccupancy(parkingLot, snapshot);
+
+        ParkingLot restored = newLot();
+        assertEquals(2, ParkingLotStore.restoreOccupancy(snapshot, restored));
+        for (Ticket ticket : new Ticket[] {first, second}) {
+            Ticket copy = restored.findTicketByPlate(ticket.getVehicle().getLicensePlate());
+            assertNotNull(copy);
+            assertEquals(ticket.getNumber(), copy.getNumber());
+            assertEquals(ticket.getIssuedAt(), copy.getIssuedAt());
+            assertEquals(ticket.getParkingSpot().getSpotId(), copy.getParkingSpot().getSpotId());
+        }
+        assertEquals(0, restored.freeCount(ParkingSpotType.MEDIUM));
+    }
+
+    // A spot taken by a gate that has not registered the ticket yet is left free on restore
+    @Test
+    void spotWithoutTicketIsNotRestored(@TempDir Path directory) throws Exception {
+        ParkingLot parkingLot = newLot();
+        Ticket parked = parkingLot.parkVehicle(new Car("PARKED"));
+        ParkingSpot inFlight = parkingLot.getParkingLevels().get(1).getSpots().get(0);
+        assertTrue(inFlight.assignVehicle(new Car("IN-FLIGHT")));
+        Path snapshot = directory.resolve("occupancy.bin");
+        ParkingLotStore.writeOccupancy(parkingLot, snapshot);
+
+        ParkingLot restored = newLot();
+        assertEquals(1, ParkingLotStore.restoreOccupancy(snapshot, restored));
+        assertEquals(parked.getNumber(), restored.findTicketByPlate("PARKED").getNumber());
+        assertNull(restored.findTicketByPlate("IN-FLIGHT"));
+        assertTrue(restored.getParkingLevels().get(1).getSpots().get(0).isAvailable());
+        assertEquals(1, restored.freeCount(ParkingSpotType.MEDIUM));
+    }
+
+    private static ParkingLot newLot() {
+        ParkingLot parkingLot = new ParkingLot("lot-1", "Test", "1 Main St", "Springfield");
+        for (int level = 0; level < 2; level++) {
+            ParkingLevel parkingLevel = new ParkingLevel(level);
+            parkingLevel.addSpot(new ParkingSpot(level + "-0", ParkingSpotType.MEDIUM));
+            parkingLot.addParkingLevel(parkingLevel);
+        }
+        return parkingLot;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.ooad.jobscheduling;
+
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLevel;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingLot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.ParkingSpot;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Ticket;
+import com.example.ooad.jobscheduling.ParkingSystem.ParkingSpotType.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParkingSpotTest {
+
+    static class Car extends Vehicle {
+        Car(String licensePlate) {
+            super(licensePlate, ParkingSpotType.MEDIUM);
+        }
+    }
+
+    @Test
+    void assignVehicleRefusesAnOccupiedSpot() {
+        ParkingLevel parkingLevel = new ParkingLevel(0);
+        ParkingSpot spot = new ParkingSpot("0-0", ParkingSpotType.MEDIUM);
+        parkingLevel.addSpot(spot);
+        Car first = new Car("FIRST");
+        Car second = new Car("SECOND");
+
+        assertSame(spot, parkingLevel.findAvailableSlot(first));
+        assertTrue(spot.assignVehicle(first));
+        assertFalse(spot.assignVehicle(second));
+        assertSame(first, spot.getVehicle());
+        assertEquals(0, parkingLevel.freeCount(ParkingSpotType.MEDIUM));
+    }
+
+    @Test
+    void assignVehicleRefusesAnOccupiedSpotWithoutALevel() {
+        ParkingSpot spot = new ParkingSpot("loose", ParkingSpotType.MEDIUM);
+        Car first = new Car("FIRST");
+        assertTrue(spot.assignVehicle(first));
+        assertFalse(spot.assignVehicle(new Car("SECOND")));
+        assertSame(first, spot.getVehicle());
+    }
+
+    @Test
+    void staleTicketDoesNotEvictTheNextCar() {
+        ParkingLot parkingLot = new ParkingLot("lot-1", "Test", "1 Main St", "Springfield");
+        ParkingLevel parkingLevel = new ParkingLevel(0);
+        parkingLevel.addSpot(new ParkingSpot("0-0", ParkingSpotType.MEDIUM));
+        parkingLot.addParkingLevel(parkingLevel);
+
+        Ticket first = parkingLot.parkVehicle(new Car("FIRST"));
+        assertNotNull(parkingLot.exitVehicle(first));
+        Car second = new Car("SECOND");
+        Ticket next = parkingLot.parkVehicle(second);
+        assertNotNull(next);
+
+        assertNull(parkingLot.exitVehicle(first));
+        assertSame(second, next.getParkingSpot().getVehicle());
+        assertEquals(next.getNumber(), parkingLot.findTicketByPlate("SECOND").getNumber());
+        assertNull(parkingLot.findTicketByPlate("FIRST"));
+        assertNull(parkingLot.findTicket(first.getTicketId()));
+    }
+}
@@ -0,0 +1,53 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenDurableWaitsForTheGroupCommit() throws Exception {
+        // A commit window far longer than the test, so nothing is forced until close
+        BookingJournal journal = new BookingJournal(directory, 1024, 60_000_000_000L);
+        long sequence = journal.append(BookingJournal.EventType.BOOK, 7, 3, 0.0);
+        CompletableFuture<Void> durable = journal.whenDurable(sequence);
+        assertFalse(durable.isDone());
+        journal.close();
+        assertTrue(durable.isDone());
+        assertTrue(journal.whenDurable(sequence).isDone());
+        assertTrue(BookingJournal.replay(directory).isBooked(7, 3));
+    }
+
+    @Test
+    void bookingIsReturnedOnlyOnceDurable() throws Exception {
+        BookingJournal journal = new BookingJournal(directory, 1024, 60_000_000_000L);
+        MovieTicketSystem.BookingManager bookingManager = MovieTicketSystem.BookingManager.INSTANCE;
+        bookingManager.setJournal(journal);
+        try {
+            List<MovieTicketSystem.Seat> seats = List.of(new MovieTicketSystem.Seat(1, MovieTicketSystem.SeatType.REGULAR));
+            MovieTicketSystem.ShowTime showTime = new MovieTicketSystem.ShowTime(LocalDateTime.now(), null, null, seats);
+            MovieTicketSystem.User user = new MovieTicketSystem.User("user", "user@example.com");
+            CompletableFuture<MovieTicketSystem.Booking> booking = bookingManager.bookTicketAsync(showTime, user, 1);
+            Thread.sleep(200);
+            assertFalse(booking.isDone());
+            assertTrue(user.getBookingHistory().isEmpty());
+            journal.close();
+            assertEquals(1, booking.get().getSeat());
+            assertEquals(1, user.getBookingHistory().size());
+        } finally {
+            bookingManager.setJournal(null);
+        }
+    }
+}
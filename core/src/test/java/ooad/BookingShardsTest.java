@@ -0,0 +1,64 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingShardsTest {
+
+    @Test
+    void errorFailsOnlyItsOwnTask() throws Exception {
+        BookingShards shards = new BookingShards(1, 16, 1_000_000L);
+        try {
+            CompletableFuture<Object> failed = shards.submit(1, () -> {
+                throw new AssertionError("boom");
+            });
+            CompletableFuture<Integer> next = shards.submit(1, () -> 42);
+            ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, error.getCause());
+            assertEquals(42, next.get(5, TimeUnit.SECONDS));
+        } finally {
+            shards.close();
+        }
+    }
+
+    @Test
+    void closeFailsQueuedTasks() throws Exception {
+        BookingShards shards = new BookingShards(1, 16, 1_000_000L);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = shards.submit(1, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        running.await();
+        CompletableFuture<Integer> queued = shards.submit(1, () -> 2);
+        Thread closer = new Thread(shards::close);
+        closer.start();
+        // close() has stopped the shard once it waits to join the busy shard thread
+        while (closer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        closer.join(5_000);
+        assertEquals(1, blocking.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.isDone());
+        ExecutionException rejected = assertThrows(ExecutionException.class, queued::get);
+        assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+        assertTrue(shards.submit(1, () -> 3).isCompletedExceptionally());
+    }
+}
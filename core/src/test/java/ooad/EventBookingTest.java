@@ -0,0 +1,64 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Sync and async bookings of one seat race each other; exactly one may win
+class EventBookingTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 200;
+
+    @Test
+    void syncAndAsyncBookingsOfOneSeatHaveOneWinner() throws InterruptedException {
+        EventManagementSystem.BookingManager bookingManager = EventManagementSystem.BookingManager.INSTANCE;
+        EventManagementSystem.Venue venue = new EventManagementSystem.Venue("venue", "Mumbai");
+        EventManagementSystem.Event event = new EventManagementSystem.Concert("Concert", "stress", new Date(), venue, "Artist");
+        for (int round = 0; round < ROUNDS; round++) {
+            EventManagementSystem.ShowTime showTime = new EventManagementSystem.ShowTime(new Date(), venue, event);
+            showTime.addSeat(new EventManagementSystem.Seat(1));
+            AtomicInteger winners = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            List<EventManagementSystem.User> users = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean async = t % 2 == 0;
+                EventManagementSystem.User user = new EventManagementSystem.User("user-" + t, "user-" + t + "@example.com");
+                users.add(user);
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    EventManagementSystem.Booking booking = async
+                            ? bookingManager.bookTicketAsync(user, showTime, 1).join()
+                            : bookingManager.bookTicket(user, showTime, 1);
+                    if (booking.user != null) {
+                        winners.incrementAndGet();
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            int bookings = 0;
+            for (EventManagementSystem.User user : users) {
+                bookings += user.getBookings().size();
+            }
+            assertEquals(1, winners.get(), "winners in round " + round);
+            assertEquals(1, bookings, "bookings in round " + round);
+        }
+    }
+}
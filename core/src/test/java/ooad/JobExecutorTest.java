@@ -0,0 +1,143 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class JobExecutorTest {
+
+    static class RecordingJob extends JobRunner.Job {
+        private final Runnable body;
+
+        RecordingJob(String name, Runnable body) {
+            super(name, JobRunner.Priority.LOW);
+            this.body = body;
+        }
+
+        @Override
+        public void execute() {
+            body.run();
+        }
+    }
+
+    @Test
+    void laneRunsOldestFirst() throws Exception {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        try (JobRunner.JobExecutor executor = new JobRunner.JobExecutor(1)) {
+            executor.submit(new RecordingJob("blocker", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            started.await();
+            for (int i = 0; i < 5; i++) {
+                int number = i;
+                executor.submit(new RecordingJob("job-" + i, () -> {
+                    order.add(number);
+                    done.countDown();
+                }));
+            }
+            release.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    void platformFallbackIsBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(40);
+        try (JobRunner.VirtualThreadJobExecutor executor = new JobRunner.VirtualThreadJobExecutor(Integer.MAX_VALUE, 4)) {
+            assumeFalse(executor.isVirtual(), "virtual threads available");
+            for (int i = 0; i < 40; i++) {
+                executor.submit(new RecordingJob("io-" + i, () -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }));
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(4, peak.get());
+    }
+
+    @Test
+    void errorInAJobDoesNotKillTheWorker() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        JobRunner.JobExecutor executor = new JobRunner.JobExecutor(1);
+        executor.submit(new RecordingJob("broken", () -> {
+            throw new AssertionError("boom");
+        }));
+        executor.submit(new RecordingJob("next", done::countDown));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // close waits for the worker, so the metrics are final
+        executor.close();
+        JobRunner.LaneMetrics metrics = executor.getMetrics(JobRunner.Priority.LOW);
+        assertEquals(1, metrics.failed.sum());
+        assertEquals(2, metrics.completed.sum());
+    }
+
+    @Test
+    void errorInAVirtualThreadJobIsCountedAsFailed() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        try (JobRunner.VirtualThreadJobExecutor executor = new JobRunner.VirtualThreadJobExecutor(1)) {
+            executor.submit(new RecordingJob("broken", () -> {
+                throw new StackOverflowError();
+            }));
+            executor.submit(new RecordingJob("next", done::countDown));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(1, executor.getLimit(RecordingJob.class).failed.sum());
+        }
+    }
+
+    @Test
+    void closeRunsQueuedJobsThenRejects() throws Exception {
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        JobRunner.JobExecutor executor = new JobRunner.JobExecutor(2);
+        executor.submit(new RecordingJob("blocker", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        started.await();
+        for (int i = 0; i < 10; i++) {
+            executor.submit(new RecordingJob("queued-" + i, ran::incrementAndGet));
+        }
+        Thread closer = new Thread(executor::close);
+        closer.start();
+        release.countDown();
+        closer.join(5_000);
+        assertFalse(closer.isAlive());
+        assertEquals(10, ran.get());
+        assertEquals(11, executor.getMetrics(JobRunner.Priority.LOW).completed.sum());
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(new RecordingJob("late", ran::incrementAndGet)));
+    }
+}
@@ -0,0 +1,253 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final JobRunner.JobDispatcher NO_DISPATCH = job -> { };
+
+    static class ReportJob extends JobRunner.Job {
+        ReportJob(String name, JobRunner.Priority priority) {
+            super(name, priority);
+        }
+
+        @Override
+        public void execute() {
+        }
+    }
+
+    @Test
+    void unknownJobTypeSurvivesCompactionAndKeepsItsId(@TempDir Path directory) throws Exception {
+        long reportId;
+        try (JobStore store = new JobStore(directory)) {
+            store.registerJobType(ReportJob.class, ReportJob::new);
+            JobRunner.JobScheduler scheduler = new JobRunner.JobScheduler();
+            store.recover(scheduler, NO_DISPATCH, NOW);
+            JobRunner.ScheduledJob report = new JobRunner.ScheduledJob(new ReportJob("report", JobRunner.Priority.LOW), new JobRunner.HourlySchedule());
+            scheduler.addScheduledJob(report, NOW);
+            reportId = report.getId();
+        }
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = new JobRunner.JobScheduler();
+            assertEquals(0, store.recover(scheduler, NO_DISPATCH, NOW));
+            JobRunner.ScheduledJob email = new JobRunner.ScheduledJob(new JobRunner.EmailJob("email", JobRunner.Priority.HIGH), new JobRunner.HourlySchedule());
+            assertNotEquals(reportId, email.getId());
+            scheduler.addScheduledJob(email, NOW);
+            store.compact();
+            assertEquals(2, store.size());
+        }
+        try (JobStore store = new JobStore(directory)) {
+            store.registerJobType(ReportJob.class, ReportJob::new);
+            JobRunner.JobScheduler scheduler = new JobRunner.JobScheduler();
+            assertEquals(2, store.recover(scheduler, NO_DISPATCH, NOW));
+            assertTrue(scheduler.getJobs().stream().anyMatch(job -> job.getId() == reportId && job.getJob() instanceof ReportJob));
+        }
+    }
+
+    @Test
+    void unstorableScheduleIsRejectedBeforeRegistering(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = new JobRunner.JobScheduler();
+            store.recover(scheduler, NO_DISPATCH, NOW);
+            JobRunner.Schedule everyNoon = time -> time.getHour() == 12 && time.getMinute() == 0;
+            JobRunner.ScheduledJob job = new JobRunner.ScheduledJob(new JobRunner.EmailJob("noon", JobRunner.Priority.LOW), everyNoon);
+            assertThrows(IllegalArgumentException.class, () -> scheduler.addScheduledJob(job, NOW));
+            assertFalse(scheduler.getJobs().contains(job));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    void manualRescheduleSurvivesRestartUntilItFires(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            JobRunner.ScheduledJob job = hourly("moved", JobRunner.MisfirePolicy.SKIP);
+            scheduler.addScheduledJob(job, NOW);
+            scheduler.rescheduleJob(job, NOW.plusMinutes(45));
+        }
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW.plusMinutes(30));
+            store.compact();
+            JobRunner.Trigger trigger = scheduler.pollDue(NOW.plusMinutes(45));
+            assertEquals(NOW.plusMinutes(45), trigger.getFireTime());
+            scheduler.reschedule(trigger, NOW.plusMinutes(45));
+        }
+        try (JobStore store = new JobStore(directory)) {
+            assertEquals(NOW.plusHours(1), nextFireTime(recover(store, NOW.plusMinutes(50))));
+        }
+    }
+
+    // Registered at 12:00 on an hourly schedule, down until 17:30: 13:00 to 17:00 were missed
+    @Test
+    void fireOnceRunsOneMissedFire(@TempDir Path directory) throws Exception {
+        assertEquals(1, missedFires(directory, JobRunner.MisfirePolicy.FIRE_ONCE, NOW.plusHours(5).plusMinutes(30)));
+    }
+
+    @Test
+    void fireAllRunsEveryMissedFire(@TempDir Path directory) throws Exception {
+        assertEquals(5, missedFires(directory, JobRunner.MisfirePolicy.FIRE_ALL, NOW.plusHours(5).plusMinutes(30)));
+    }
+
+    @Test
+    void fireAllIsCappedAtMaxCatchUp(@TempDir Path directory) throws Exception {
+        assertEquals(JobStore.MAX_CATCH_UP, missedFires(directory, JobRunner.MisfirePolicy.FIRE_ALL, NOW.plusHours(5000).plusMinutes(30)));
+    }
+
+    @Test
+    void skipRunsNoMissedFire(@TempDir Path directory) throws Exception {
+        assertEquals(0, missedFires(directory, JobRunner.MisfirePolicy.SKIP, NOW.plusHours(5).plusMinutes(30)));
+    }
+
+    // The catch-up fire is logged, so a second restart soon after does not replay the same misses
+    @Test
+    void catchUpIsRecordedAsAFire(@TempDir Path directory) throws Exception {
+        LocalDateTime restart = NOW.plusHours(5).plusMinutes(30);
+        assertEquals(1, missedFires(directory, JobRunner.MisfirePolicy.FIRE_ONCE, restart));
+        AtomicInteger dispatched = new AtomicInteger();
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, restart.plusMinutes(10), job -> dispatched.incrementAndGet());
+            assertEquals(restart.plusMinutes(30), nextFireTime(scheduler));
+        }
+        assertEquals(0, dispatched.get());
+    }
+
+    @Test
+    void recoveryAnchorsOnTheLastFire(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            scheduler.addScheduledJob(hourly("hourly", JobRunner.MisfirePolicy.FIRE_ALL), NOW);
+            JobRunner.Trigger trigger = scheduler.pollDue(NOW.plusHours(1));
+            scheduler.reschedule(trigger, NOW.plusHours(1));
+        }
+        AtomicInteger dispatched = new AtomicInteger();
+        try (JobStore store = new JobStore(directory)) {
+            // Anchored on the 12:00 registration, 13:00 would count as missed
+            JobRunner.JobScheduler scheduler = recover(store, NOW.plusHours(1).plusMinutes(30), job -> dispatched.incrementAndGet());
+            assertEquals(NOW.plusHours(2), nextFireTime(scheduler));
+        }
+        assertEquals(0, dispatched.get());
+    }
+
+    @Test
+    void removedJobsStayRemoved(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            JobRunner.ScheduledJob kept = hourly("kept", JobRunner.MisfirePolicy.SKIP);
+            JobRunner.ScheduledJob removed = hourly("removed", JobRunner.MisfirePolicy.SKIP);
+            scheduler.addScheduledJob(kept, NOW);
+            scheduler.addScheduledJob(removed, NOW);
+            assertTrue(scheduler.removeScheduledJob(removed));
+        }
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            assertEquals(List.of("kept"), jobNames(scheduler));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void truncatedLastRecordIsIgnored(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            scheduler.addScheduledJob(hourly("whole", JobRunner.MisfirePolicy.SKIP), NOW);
+            scheduler.addScheduledJob(hourly("torn", JobRunner.MisfirePolicy.SKIP), NOW);
+        }
+        Path segment = segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            assertEquals(List.of("whole"), jobNames(scheduler));
+            // New records go to a fresh segment, never after the torn tail
+            scheduler.addScheduledJob(hourly("after", JobRunner.MisfirePolicy.SKIP), NOW);
+        }
+        assertEquals(2, segments(directory).size());
+        try (JobStore store = new JobStore(directory)) {
+            assertEquals(List.of("after", "whole"), jobNames(recover(store, NOW)));
+        }
+    }
+
+    @Test
+    void reloadsSnapshotAndLaterSegments(@TempDir Path directory) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW);
+            scheduler.addScheduledJob(hourly("fired", JobRunner.MisfirePolicy.FIRE_ALL), NOW);
+            JobRunner.ScheduledJob dropped = hourly("dropped", JobRunner.MisfirePolicy.FIRE_ALL);
+            scheduler.addScheduledJob(dropped, NOW.plusHours(2));
+            scheduler.reschedule(scheduler.pollDue(NOW.plusHours(1)), NOW.plusHours(1));
+            store.compact();
+            assertEquals(1, segments(directory).size());
+            scheduler.addScheduledJob(hourly("late", JobRunner.MisfirePolicy.FIRE_ALL), NOW.plusHours(1));
+            scheduler.removeScheduledJob(dropped);
+        }
+        AtomicInteger dispatched = new AtomicInteger();
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, NOW.plusHours(1).plusMinutes(30), job -> dispatched.incrementAndGet());
+            assertEquals(List.of("fired", "late"), jobNames(scheduler));
+            assertEquals(NOW.plusHours(2), nextFireTime(scheduler));
+            assertEquals(NOW.plusHours(2), nextFireTime(scheduler));
+        }
+        assertEquals(0, dispatched.get());
+    }
+
+    // Registers one hourly job at NOW, restarts at the given time and returns how many missed fires were dispatched
+    private static int missedFires(Path directory, JobRunner.MisfirePolicy policy, LocalDateTime restart) throws Exception {
+        try (JobStore store = new JobStore(directory)) {
+            recover(store, NOW).addScheduledJob(hourly("hourly", policy), NOW);
+        }
+        AtomicInteger dispatched = new AtomicInteger();
+        try (JobStore store = new JobStore(directory)) {
+            JobRunner.JobScheduler scheduler = recover(store, restart, job -> dispatched.incrementAndGet());
+            assertEquals(restart.plusMinutes(30), nextFireTime(scheduler));
+        }
+        return dispatched.get();
+    }
+
+    private static List<String> jobNames(JobRunner.JobScheduler scheduler) {
+        return scheduler.getJobs().stream().map(job -> job.getJob().getName()).sorted().collect(Collectors.toList());
+    }
+
+    private static List<Path> segments(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static JobRunner.JobScheduler recover(JobStore store, LocalDateTime now) {
+        return recover(store, now, NO_DISPATCH);
+    }
+
+    private static JobRunner.JobScheduler recover(JobStore store, LocalDateTime now, JobRunner.JobDispatcher dispatcher) {
+        JobRunner.JobScheduler scheduler = new JobRunner.JobScheduler();
+        store.recover(scheduler, dispatcher, now);
+        return scheduler;
+    }
+
+    private static JobRunner.ScheduledJob hourly(String name, JobRunner.MisfirePolicy policy) {
+        return new JobRunner.ScheduledJob(new JobRunner.EmailJob(name, JobRunner.Priority.MEDIUM), new JobRunner.HourlySchedule(), policy);
+    }
+
+    // Takes the scheduler's only pending trigger
+    private static LocalDateTime nextFireTime(JobRunner.JobScheduler scheduler) {
+        return scheduler.pollDue(NOW.plusYears(1)).getFireTime();
+    }
+}
@@ -0,0 +1,70 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hammers a single showtime through BookingManager from many threads; every seat must have exactly one winner
+class MovieBookingStressTest {
+
+    private static final int THREADS = 64;
+    private static final int SEATS = 200;
+    private static final int ROUNDS = 20;
+
+    @Test
+    void everySeatIsBookedExactlyOnce() throws InterruptedException {
+        MovieTicketSystem.BookingManager bookingManager = MovieTicketSystem.BookingManager.INSTANCE;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<MovieTicketSystem.Seat> seats = new ArrayList<>();
+            for (int seatNumber = 1; seatNumber <= SEATS; seatNumber++) {
+                seats.add(new MovieTicketSystem.Seat(seatNumber, MovieTicketSystem.SeatType.REGULAR));
+            }
+            MovieTicketSystem.ShowTime showTime = new MovieTicketSystem.ShowTime(LocalDateTime.now(), null, null, seats);
+            AtomicIntegerArray winners = new AtomicIntegerArray(SEATS + 1);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            List<MovieTicketSystem.User> users = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                MovieTicketSystem.User user = new MovieTicketSystem.User("user-" + t, "user-" + t + "@example.com");
+                users.add(user);
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < SEATS; i++) {
+                        int seatNumber = 1 + (i + offset * 7) % SEATS;
+                        if (bookingManager.bookTicket(showTime, user, seatNumber) != null) {
+                            winners.incrementAndGet(seatNumber);
+                        }
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            int bookings = 0;
+            for (MovieTicketSystem.User user : users) {
+                bookings += user.getBookingHistory().size();
+            }
+            for (int seatNumber = 1; seatNumber <= SEATS; seatNumber++) {
+                assertEquals(1, winners.get(seatNumber), "seat " + seatNumber + " in round " + round);
+                assertTrue(showTime.getInventory().isBooked(seatNumber), "seat " + seatNumber + " not booked");
+            }
+            assertEquals(SEATS, bookings, "bookings in round " + round);
+        }
+    }
+}
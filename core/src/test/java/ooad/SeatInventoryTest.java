@@ -0,0 +1,55 @@
+package ooad;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SeatInventoryTest {
+
+    // Seats numbered 0..capacity-1, so a full last word ends exactly on a 64-seat boundary
+    private static MovieTicketSystem.SeatInventory inventory(int capacity) {
+        List<MovieTicketSystem.Seat> seats = new ArrayList<>();
+        for (int seatNumber = 0; seatNumber < capacity; seatNumber++) {
+            seats.add(new MovieTicketSystem.Seat(seatNumber, MovieTicketSystem.SeatType.REGULAR));
+        }
+        return new MovieTicketSystem.SeatInventory(seats);
+    }
+
+    @Test
+    void findsRunInFullyFreeWord() {
+        MovieTicketSystem.SeatInventory inventory = inventory(64);
+        assertArrayEquals(new int[]{31, 32}, inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, 2));
+    }
+
+    @Test
+    void findsRunEndingOnLastWordBoundary() {
+        MovieTicketSystem.SeatInventory inventory = inventory(128);
+        for (int seatNumber = 0; seatNumber <= 100; seatNumber++) {
+            inventory.book(seatNumber);
+        }
+        assertArrayEquals(new int[]{101, 102, 103, 104}, inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, 4));
+        assertNull(inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, 28));
+    }
+
+    @Test
+    void findsRunSpanningWords() {
+        MovieTicketSystem.SeatInventory inventory = inventory(128);
+        for (int seatNumber = 0; seatNumber < 128; seatNumber++) {
+            if (seatNumber < 60 || seatNumber > 67) {
+                inventory.book(seatNumber);
+            }
+        }
+        assertArrayEquals(new int[]{60, 61, 62, 63, 64, 65, 66, 67}, inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, 8));
+    }
+
+    @Test
+    void rejectsNonPositiveCount() {
+        MovieTicketSystem.SeatInventory inventory = inventory(64);
+        assertNull(inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, 0));
+        assertNull(inventory.findAdjacent(MovieTicketSystem.SeatType.REGULAR, -1));
+    }
+}